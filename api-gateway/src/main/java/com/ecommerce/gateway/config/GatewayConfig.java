@@ -5,6 +5,7 @@ import java.time.Duration;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -28,6 +29,13 @@ public class GatewayConfig {
                         .setBackoff(Duration.ofMillis(1000), Duration.ofMillis(2000), 2, true)))
                 .uri("lb://product-service"))
             
+            //order event stream: long-lived, so no retry, circuit breaker or response timeout
+            .route("order-event-stream", r -> r
+                .order(-1)
+                .path("/api/orders/events/stream")
+                .metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, -1)
+                .uri("lb://order-service"))
+            
             //order service routes
             .route("order-service", r -> r
                 .path("/api/orders/**")
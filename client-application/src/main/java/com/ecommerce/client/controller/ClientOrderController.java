@@ -1,6 +1,7 @@
 package com.ecommerce.client.controller;
 
 import com.ecommerce.client.dto.OrderDto;
+import com.ecommerce.client.service.OrderEventSubscriber;
 import com.ecommerce.client.service.OrderServiceClient;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
@@ -24,15 +25,21 @@ public class ClientOrderController {
     @Autowired
     private OrderServiceClient orderServiceClient;
     
+    @Autowired
+    private OrderEventSubscriber orderEventSubscriber;
+    
     @GetMapping
     public ResponseEntity<?> getAllOrders() {
         try {
             logger.info("Client: Fetching all orders");
-            List<OrderDto> orders = orderServiceClient.getAllOrders();
+            //served from the pushed view while the event stream is up, otherwise fetched through the gateway
+            boolean pushed = orderEventSubscriber.isLive();
+            List<OrderDto> orders = pushed ? orderEventSubscriber.getOrders() : orderServiceClient.getAllOrders();
             
             Map<String, Object> response = new HashMap<>();
             response.put("orders", orders);
             response.put("count", orders.size());
+            response.put("source", pushed ? "push" : "gateway");
             response.put("timestamp", LocalDateTime.now());
             response.put("status", "success");
             
@@ -104,12 +111,15 @@ public class ClientOrderController {
     public ResponseEntity<?> getOrdersByCustomer(@PathVariable String email) {
         try {
             logger.info("Client: Fetching orders for customer: {}", email);
-            List<OrderDto> orders = orderServiceClient.getOrdersByCustomer(email);
+            boolean pushed = orderEventSubscriber.isLive();
+            List<OrderDto> orders = pushed ? orderEventSubscriber.getOrdersByCustomer(email)
+                    : orderServiceClient.getOrdersByCustomer(email);
             
             Map<String, Object> response = new HashMap<>();
             response.put("orders", orders);
             response.put("customerEmail", email);
             response.put("count", orders.size());
+            response.put("source", pushed ? "push" : "gateway");
             response.put("timestamp", LocalDateTime.now());
             response.put("status", "success");
             
@@ -0,0 +1,215 @@
+package com.ecommerce.client.service;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import com.ecommerce.client.dto.OrderDto;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+//keeps a local view of all orders current from the order event stream, so order listings are served
+//without polling the gateway; reconnects resume from the last event seen. The view is capped: once the
+//orders outgrow it the subscriber stops and listings go back to the gateway.
+@Service
+public class OrderEventSubscriber {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventSubscriber.class);
+    private static final String API_GATEWAY_URL = "http://localhost:8080";
+    
+    @Autowired
+    private RestTemplate restTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${client.orders.push.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${client.orders.push.reconnect-ms:2000}")
+    private long reconnectMillis;
+    
+    //largest view kept in memory; beyond it listings are served by the gateway again
+    @Value("${client.orders.push.max-orders:50000}")
+    private int maxOrders;
+    
+    //events are applied on the reader thread only after the snapshot is in, and a delete always follows the
+    //updates of its order, so removing the order is enough and no tombstones are kept
+    private final Map<Long, OrderDto> orders = new ConcurrentHashMap<>();
+    
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    
+    private volatile boolean live;
+    private volatile boolean running = true;
+    private volatile Long lastEventId;
+    private Thread readerThread;
+    
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            readerThread = new Thread(this::run, "order-event-subscriber");
+            readerThread.setDaemon(true);
+            readerThread.start();
+        }
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (readerThread != null) {
+            readerThread.interrupt();
+        }
+    }
+    
+    // true while the stream is connected and the view holds a full snapshot
+    public boolean isLive() {
+        return live;
+    }
+    
+    public List<OrderDto> getOrders() {
+        return orders.values().stream().sorted(Comparator.comparing(OrderDto::getId)).toList();
+    }
+    
+    public List<OrderDto> getOrdersByCustomer(String email) {
+        return orders.values().stream()
+                .filter(order -> email.equalsIgnoreCase(order.getCustomerEmail()))
+                .sorted(Comparator.comparing(OrderDto::getId))
+                .toList();
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                readStream();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("Order event stream disconnected: {}", e.getMessage());
+            }
+            live = false;
+            try {
+                Thread.sleep(reconnectMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    private void readStream() throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(API_GATEWAY_URL + "/api/orders/events/stream"))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId.toString());
+        }
+        HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IllegalStateException("Order event stream returned " + response.statusCode());
+        }
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            if (lastEventId == null) {
+                //first connection: subscribe before taking the snapshot so no change falls in between
+                if (!loadSnapshot()) {
+                    return;
+                }
+            }
+            live = true;
+            logger.info("Order event stream connected, serving orders from the local view");
+            
+            String id = null;
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (running && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    if (data.length() > 0) {
+                        apply(data.toString());
+                        if (id != null) {
+                            lastEventId = Long.valueOf(id);
+                        }
+                        if (orders.size() > maxOrders) {
+                            stopMirroring();
+                            return;
+                        }
+                    }
+                    id = null;
+                    data.setLength(0);
+                } else if (line.startsWith("id:")) {
+                    id = line.substring(3).trim();
+                } else if (line.startsWith("data:")) {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(line.substring(5).stripLeading());
+                }
+            }
+        }
+    }
+    
+    private boolean loadSnapshot() {
+        OrderDto[] snapshot = restTemplate.getForObject(API_GATEWAY_URL + "/api/orders", OrderDto[].class);
+        if (snapshot != null && snapshot.length > maxOrders) {
+            stopMirroring();
+            return false;
+        }
+        //nothing has been read from this connection yet, so the view can be rebuilt from scratch
+        orders.clear();
+        if (snapshot != null) {
+            for (OrderDto order : snapshot) {
+                merge(order);
+            }
+        }
+        logger.info("Loaded {} orders into the local view", orders.size());
+        return true;
+    }
+    
+    private void apply(String data) throws Exception {
+        JsonNode event = objectMapper.readTree(data);
+        String type = event.path("type").asText();
+        long orderId = event.path("orderId").asLong();
+        if ("ORDER_DELETED".equals(type)) {
+            orders.remove(orderId);
+            return;
+        }
+        merge(objectMapper.treeToValue(event.path("payload"), OrderDto.class));
+    }
+    
+    //stop for good once the orders outgrow the cap, dropping the view
+    private void stopMirroring() {
+        logger.warn("More than {} orders, too many to keep locally; serving order listings from the gateway", maxOrders);
+        running = false;
+        live = false;
+        orders.clear();
+    }
+    
+    //keep whichever copy of an order is newer, since the snapshot and events can arrive in either order
+    private void merge(OrderDto order) {
+        orders.merge(order.getId(), order, (current, incoming) ->
+                current.getUpdatedAt() != null && incoming.getUpdatedAt() != null
+                        && incoming.getUpdatedAt().isBefore(current.getUpdatedAt()) ? current : incoming);
+    }
+}
@@ -4,11 +4,21 @@ import com.ecommerce.client.dto.ProductDto;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import jakarta.annotation.PostConstruct;
+
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ProductServiceClient {
@@ -19,13 +29,26 @@ public class ProductServiceClient {
     @Autowired
     private RestTemplate restTemplate;
     
+    @Value("${client.products.cache-size:1000}")
+    private int cacheSize;
+    
+    //last response per URL with its ETag, revalidated on every read; least recently used first
+    private Map<String, Cached> responses;
+    
+    @PostConstruct
+    void init() {
+        responses = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+    
     public List<ProductDto> getAllProducts() {
         try {
             logger.info("Fetching all products via API Gateway");
-            ProductDto[] products = restTemplate.getForObject(
-                API_GATEWAY_URL + "/api/products", 
-                ProductDto[].class
-            );
+            ProductDto[] products = getRevalidated(API_GATEWAY_URL + "/api/products", ProductDto[].class);
             return products != null ? Arrays.asList(products) : List.of();
         } catch (Exception e) {
             logger.error("Error fetching products: {}", e.getMessage());
@@ -36,10 +59,7 @@ public class ProductServiceClient {
     public ProductDto getProductById(Long id) {
         try {
             logger.info("Fetching product with ID: {}", id);
-            return restTemplate.getForObject(
-                API_GATEWAY_URL + "/api/products/" + id, 
-                ProductDto.class
-            );
+            return getRevalidated(API_GATEWAY_URL + "/api/products/" + id, ProductDto.class);
         } catch (Exception e) {
             logger.error("Error fetching product {}: {}", id, e.getMessage());
             return null;
@@ -59,4 +79,33 @@ public class ProductServiceClient {
             throw new RuntimeException("Failed to create product: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    //conditional GET: a 304 reuses the stored body, anything else replaces it
+    private <T> T getRevalidated(String url, Class<T> type) {
+        Cached cached;
+        synchronized (responses) {
+            cached = responses.get(url);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        if (cached != null) {
+            headers.setIfNoneMatch(cached.etag());
+        }
+        ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), type);
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+            logger.debug("Not modified: {}", url);
+            return type.cast(cached.body());
+        }
+        
+        String etag = response.getHeaders().getETag();
+        synchronized (responses) {
+            if (etag != null && response.getBody() != null) {
+                responses.put(url, new Cached(etag, response.getBody()));
+            } else {
+                responses.remove(url);
+            }
+        }
+        return response.getBody();
+    }
+    
+    private record Cached(String etag, Object body) {}
+}
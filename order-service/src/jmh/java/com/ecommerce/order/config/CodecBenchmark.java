@@ -0,0 +1,75 @@
+package com.ecommerce.order.config;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.ecommerce.order.dto.ProductDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+//encodes and decodes the product batch that order-service fetches per order, as JSON and as CBOR from mappers
+//built the way BinaryContentConfig builds them. The encoded size of each payload is printed once per trial
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+    
+    private static final TypeReference<List<ProductDto>> PRODUCTS = new TypeReference<>() {};
+    
+    @Param({ "json", "cbor" })
+    public String format;
+    
+    @Param({ "1", "20", "200" })
+    public int products;
+    
+    private ObjectMapper mapper;
+    
+    private List<ProductDto> batch;
+    
+    private byte[] encoded;
+    
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        mapper = format.equals("cbor") ? builder.factory(new CBORFactory()).build() : builder.build();
+        batch = new ArrayList<>();
+        for (long id = 1; id <= products; id++) {
+            ProductDto product = new ProductDto(id, "Product " + id, new BigDecimal("19.99").add(BigDecimal.valueOf(id)), 100);
+            product.setDescription("Description of product " + id + " as it is listed in the catalogue");
+            product.setCategory("Category " + id % 10);
+            batch.add(product);
+        }
+        encoded = mapper.writeValueAsBytes(batch);
+        System.out.println(format + " payload for " + products + " products: " + encoded.length + " bytes");
+    }
+    
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(batch);
+    }
+    
+    @Benchmark
+    public List<ProductDto> decode() throws IOException {
+        return mapper.readValue(encoded, PRODUCTS);
+    }
+}
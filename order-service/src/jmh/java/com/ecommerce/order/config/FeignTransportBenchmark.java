@@ -0,0 +1,125 @@
+package com.ecommerce.order.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecommerce.order.dto.ProductDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import feign.Client;
+import feign.Feign;
+import feign.RequestLine;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//product lookups through Feign from 32 threads against a local stub, the default HttpURLConnection client
+//against the pooled HttpClient 5 transport built by ProductClientHttpConfig. Reports throughput and the latency
+//distribution. HttpURLConnection keeps up to 5 idle connections per host and loopback connects are nearly free,
+//so the pool pays off once concurrency is above that and connects cost a real round trip; compare with -t 4
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+//the stub writes headers and body separately; without TCP_NODELAY delayed acks dominate every call
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Threads(32)
+public class FeignTransportBenchmark {
+    
+    @Param({ "default", "pooled" })
+    public String client;
+    
+    private HttpServer server;
+    
+    private ExecutorService handlers;
+    
+    private PoolingHttpClientConnectionManager connectionManager;
+    
+    private CloseableHttpClient httpClient;
+    
+    private Products products;
+    
+    @Setup
+    public void start() throws IOException {
+        byte[] body = new ObjectMapper().writeValueAsBytes(new ProductDto(1L, "Product 1", new BigDecimal("9.99"), 5));
+        handlers = Executors.newFixedThreadPool(64);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(handlers);
+        server.createContext("/api/products/", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        
+        products = Feign.builder()
+                .client(client.equals("pooled") ? pooledClient() : new Client.Default(null, null))
+                .target(Products.class, "http://localhost:" + server.getAddress().getPort());
+    }
+    
+    @TearDown
+    public void stop() throws IOException {
+        if (httpClient != null) {
+            httpClient.close();
+            connectionManager.close();
+        }
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+    
+    @Benchmark
+    public String getProduct() {
+        return products.getProduct();
+    }
+    
+    //the pool with the service's defaults
+    private Client pooledClient() {
+        ProductClientHttpConfig config = new ProductClientHttpConfig();
+        ReflectionTestUtils.setField(config, "maxTotal", 200);
+        ReflectionTestUtils.setField(config, "maxPerRoute", 50);
+        ReflectionTestUtils.setField(config, "maxPerTarget", Map.of());
+        ReflectionTestUtils.setField(config, "connectTimeoutMillis", 2000L);
+        ReflectionTestUtils.setField(config, "readTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(config, "timeToLiveSeconds", 300L);
+        ReflectionTestUtils.setField(config, "validateAfterInactivityMillis", 2000L);
+        connectionManager = config.feignConnectionManager(new SimpleMeterRegistry());
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .disableAutomaticRetries()
+                .build();
+        return new ApacheHttp5Client(httpClient);
+    }
+    
+    interface Products {
+        
+        @RequestLine("GET /api/products/1")
+        String getProduct();
+    }
+}
@@ -0,0 +1,138 @@
+package com.ecommerce.order.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.event.InProcessInvalidationBroadcast;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//orders/sec through OrderWriter from 16 request threads, group commit against one transaction per order, on
+//in-memory H2 in MySQL mode with the service's JDBC batching settings. The database is local, so this measures
+//the transaction and statement overhead saved; against MySQL the commit round trips saved weigh more. H2 has no
+//MySQL row-alias upsert, so the sales aggregates are left out of both variants. H2 has no
+//MySQL row-alias upsert, so the sales aggregates are left out of both variants
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class OrderWriterBenchmark {
+    
+    @Param({ "true", "false" })
+    public boolean groupCommit;
+    
+    private ConfigurableApplicationContext context;
+    
+    private OrderWriter orderWriter;
+    
+    @Setup
+    public void start() {
+        //command-line arguments, so they win over bootstrap.yml
+        context = new SpringApplicationBuilder(WriterContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--spring.cloud.config.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:writer;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=64",
+                        "--spring.jpa.properties.hibernate.order_inserts=true",
+                        "--logging.level.root=WARN",
+                        "--order.group-commit.enabled=" + groupCommit);
+        orderWriter = context.getBean(OrderWriter.class);
+    }
+    
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Order save() {
+        return orderWriter.save(order());
+    }
+    
+    private static Order order() {
+        Order order = new Order("customer@example.com", "Customer", new BigDecimal("25.00"));
+        OrderItem first = item(order, 1L, 2, "5.00");
+        OrderItem second = item(order, 2L, 1, "15.00");
+        order.setOrderItems(List.of(first, second));
+        return order;
+    }
+    
+    private static OrderItem item(Order order, Long productId, int quantity, String unitPrice) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setProductName("Product " + productId);
+        item.setQuantity(quantity);
+        item.setUnitPrice(new BigDecimal(unitPrice));
+        item.setTotalPrice(new BigDecimal(unitPrice).multiply(BigDecimal.valueOf(quantity)));
+        item.setOrder(order);
+        return item;
+    }
+    
+    //the writer and what it writes through, without web, discovery or product-service clients
+    @Configuration
+    @ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class, JdbcTemplateAutoConfiguration.class, JacksonAutoConfiguration.class })
+    @EntityScan("com.ecommerce.order.entity")
+    @EnableJpaRepositories("com.ecommerce.order.repository")
+    @Import({ OrderWriter.class, OutboxService.class, CustomerOrderCache.class, OrderStatusCounters.class,
+            InProcessInvalidationBroadcast.class })
+    static class WriterContext {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+        
+        @Bean
+        SalesAggregateService salesAggregateService() {
+            return new SalesAggregateService() {
+                @Override
+                public void recordCreated(Collection<Order> orders) {
+                }
+            };
+        }
+    }
+}
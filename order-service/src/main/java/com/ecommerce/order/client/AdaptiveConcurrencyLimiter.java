@@ -0,0 +1,68 @@
+package com.ecommerce.order.client;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+//AIMD concurrency limit: grows by about one per limit's worth of fast calls while the limit is actually
+//in use, and shrinks multiplicatively when a call is slower than the latency threshold or fails
+public class AdaptiveConcurrencyLimiter {
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, long latencyThresholdNanos) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+    }
+    
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    //latency of a call that timed out or failed on the server side signals overload as well
+    public void release(long latencyNanos, boolean failed) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (current * 2 >= limit) {
+                //+1/limit per call adds one per round of calls at the current limit
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+    
+    //a call its caller gave up on, e.g. the losing leg of a hedged read, says nothing about failure;
+    //only slowness it had already shown counts
+    public void cancel(long latencyNanos) {
+        if (latencyNanos > latencyThresholdNanos) {
+            release(latencyNanos, false);
+        } else {
+            inFlight.decrementAndGet();
+        }
+    }
+    
+    public int getLimit() {
+        return (int) limit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
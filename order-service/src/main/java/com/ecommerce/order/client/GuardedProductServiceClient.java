@@ -0,0 +1,59 @@
+package com.ecommerce.order.client;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.order.dto.ProductDto;
+import com.ecommerce.order.dto.StockAdjustment;
+
+//the ProductServiceClient the rest of the service sees: every call except stock releases passes through
+//the bulkhead and limiter
+@Primary
+@Component
+public class GuardedProductServiceClient implements ProductServiceClient {
+    
+    @Autowired
+    @Qualifier("productServiceFeignClient")
+    private ProductServiceClient delegate;
+    
+    @Autowired
+    private ProductServiceGuard guard;
+    
+    @Autowired
+    private HedgedProductReader hedgedProductReader;
+    
+    //reads are idempotent, so they may be hedged; stock changes never are
+    @Override
+    public ProductDto getProductById(Long id) {
+        if (hedgedProductReader.isEnabled()) {
+            return hedgedProductReader.getProductById(id,
+                    () -> guard.call("getProductById", () -> delegate.getProductById(id)));
+        }
+        return guard.call("getProductById", () -> delegate.getProductById(id));
+    }
+    
+    @Override
+    public List<ProductDto> getProductsByIds(List<Long> ids) {
+        if (hedgedProductReader.isEnabled()) {
+            return hedgedProductReader.getProductsByIds(ids,
+                    () -> guard.call("getProductsByIds", () -> delegate.getProductsByIds(ids)));
+        }
+        return guard.call("getProductsByIds", () -> delegate.getProductsByIds(ids));
+    }
+    
+    @Override
+    public void reserveStock(List<StockAdjustment> adjustments) {
+        guard.run("reserveStock", () -> delegate.reserveStock(adjustments));
+    }
+    
+    //releases compensate for reservations already made; shedding them under load would leak stock
+    //exactly when product-service is busiest, so they skip the bulkhead and limiter
+    @Override
+    public void releaseStock(List<StockAdjustment> adjustments) {
+        delegate.releaseStock(adjustments);
+    }
+}
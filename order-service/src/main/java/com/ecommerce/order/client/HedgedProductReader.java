@@ -0,0 +1,326 @@
+package com.ecommerce.order.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import com.ecommerce.order.dto.ProductDto;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+//hedged product reads: if the first instance has not answered within the observed p95, or failed fast, the same
+//read goes to a different instance and the first answer wins; a token budget caps hedges at a few percent of reads.
+//Requests run on the pooled HttpClient 5 the Feign clients use, and the losing request is aborted.
+@Component
+public class HedgedProductReader {
+    
+    private static final String SERVICE_ID = "product-service";
+    
+    private static final ParameterizedTypeReference<List<ProductDto>> PRODUCT_LIST = new ParameterizedTypeReference<>() {};
+    
+    //the attempt running on the current executor thread, so the request factory can hand it the request to abort
+    private static final ThreadLocal<Abort> CURRENT_ABORT = new ThreadLocal<>();
+    
+    @Autowired
+    private DiscoveryClient discoveryClient;
+    
+    @Autowired
+    private RestClient.Builder restClientBuilder;
+    
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
+    
+    @Autowired
+    private ProductServiceGuard guard;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${order.product-client.hedging.enabled:false}")
+    private boolean enabled;
+    
+    //share of reads that may be hedged, refilled per read
+    @Value("${order.product-client.hedging.budget-percent:5}")
+    private double budgetPercent;
+    
+    @Value("${order.product-client.hedging.min-delay-ms:20}")
+    private long minDelayMillis;
+    
+    //used until the latency timer has a p95
+    @Value("${order.product-client.hedging.default-delay-ms:100}")
+    private long defaultDelayMillis;
+    
+    private final AtomicInteger nextInstance = new AtomicInteger();
+    
+    private CloseableHttpClient httpClient;
+    
+    private RestClient restClient;
+    
+    private ExecutorService executor;
+    
+    private double budgetTokens;
+    
+    private Counter hedgesFired;
+    
+    private Counter hedgesWon;
+    
+    private Counter failovers;
+    
+    private Counter budgetExhausted;
+    
+    @PostConstruct
+    void init() {
+        //timeouts and keep-alive come from the shared pool; closing this client leaves the pool open.
+        //The client's own retries are off: it would sit out a 503 for a second on the same instance,
+        //where failing over to another one is this reader's job
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setConnectionManagerShared(true)
+                .disableAutomaticRetries()
+                .build();
+        restClient = restClientBuilder.clone().requestFactory(new AbortableRequestFactory(httpClient)).build();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "product-hedge-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        hedgesFired = meterRegistry.counter("order.product-client.hedges", "outcome", "fired");
+        hedgesWon = meterRegistry.counter("order.product-client.hedges", "outcome", "won");
+        failovers = meterRegistry.counter("order.product-client.hedges", "outcome", "failover");
+        budgetExhausted = meterRegistry.counter("order.product-client.hedges", "outcome", "budget-exhausted");
+    }
+    
+    @PreDestroy
+    void shutdown() throws IOException {
+        executor.shutdownNow();
+        httpClient.close();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public ProductDto getProductById(Long id, Supplier<ProductDto> direct) {
+        return read("getProductById", direct, base -> restClient.get()
+                .uri(base.resolve("/api/products/" + id))
+                .accept(MediaType.APPLICATION_CBOR)
+                .retrieve()
+                .body(ProductDto.class));
+    }
+    
+    public List<ProductDto> getProductsByIds(List<Long> ids, Supplier<List<ProductDto>> direct) {
+        return read("getProductsByIds", direct, base -> restClient.post()
+                .uri(base.resolve("/api/products/batch"))
+                .contentType(MediaType.APPLICATION_CBOR)
+                .accept(MediaType.APPLICATION_CBOR)
+                .body(ids)
+                .retrieve()
+                .body(PRODUCT_LIST));
+    }
+    
+    private <T> T read(String operation, Supplier<T> direct, Function<URI, T> request) {
+        List<ServiceInstance> instances = discoveryClient.getInstances(SERVICE_ID);
+        if (instances.size() < 2) {
+            //nowhere else to hedge to
+            return direct.get();
+        }
+        refillBudget();
+        int index = Math.floorMod(nextInstance.getAndIncrement(), instances.size());
+        URI primary = instances.get(index).getUri();
+        URI secondary = instances.get((index + 1) % instances.size()).getUri();
+        
+        Attempt<T> first = start(operation, request, primary, false);
+        try {
+            return first.future().get(hedgeDelayNanos(operation), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            //slow first answer, consider hedging below
+        } catch (ExecutionException e) {
+            RuntimeException failure = unwrap(e.getCause());
+            //an instance that is down or erroring fails fast; that is worth one try elsewhere, a 4xx or local shedding is not
+            if (!isInstanceFailure(failure) || !tryTakeBudget()) {
+                throw failure;
+            }
+            failovers.increment();
+            return join(start(operation, request, secondary, true).future());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            first.abort().run();
+            throw new IllegalStateException("Interrupted waiting for product-service");
+        }
+        
+        if (!tryTakeBudget()) {
+            budgetExhausted.increment();
+            return join(first.future());
+        }
+        hedgesFired.increment();
+        Attempt<T> second = start(operation, request, secondary, true);
+        
+        //first successful answer wins; fail only when both attempts failed
+        CompletableFuture<Attempt<T>> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        first.future().whenComplete((value, error) -> settle(winner, failures, first, error));
+        second.future().whenComplete((value, error) -> settle(winner, failures, second, error));
+        
+        Attempt<T> won = join(winner);
+        if (won.hedge()) {
+            hedgesWon.increment();
+            first.abort().run();
+        } else {
+            second.abort().run();
+        }
+        return join(won.future());
+    }
+    
+    //run one request through the guard; aborting it closes its connection, which frees the guard permit at once
+    private <T> Attempt<T> start(String operation, Function<URI, T> request, URI target, boolean hedge) {
+        Abort abort = new Abort();
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(() -> guard.call(operation, () -> {
+            CURRENT_ABORT.set(abort);
+            try {
+                return request.apply(target);
+            } catch (RuntimeException e) {
+                if (abort.isAborted()) {
+                    throw new CancellationException("Hedged read to " + target + " lost the race");
+                }
+                throw e;
+            } finally {
+                CURRENT_ABORT.remove();
+            }
+        }), executor);
+        return new Attempt<>(future, abort, hedge);
+    }
+    
+    private boolean isInstanceFailure(RuntimeException failure) {
+        return failure instanceof ResourceAccessException || failure instanceof HttpServerErrorException;
+    }
+    
+    private <T> void settle(CompletableFuture<Attempt<T>> winner, AtomicInteger failures,
+                            Attempt<T> attempt, Throwable error) {
+        if (error == null) {
+            winner.complete(attempt);
+        } else if (failures.incrementAndGet() == 2) {
+            winner.completeExceptionally(error);
+        }
+    }
+    
+    //wait about as long as 95% of calls take before paying for a second request
+    private long hedgeDelayNanos(String operation) {
+        long delay = TimeUnit.MILLISECONDS.toNanos(defaultDelayMillis);
+        for (ValueAtPercentile percentile : guard.latencyTimer(operation).takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == 0.95 && percentile.value() > 0) {
+                delay = (long) percentile.value(TimeUnit.NANOSECONDS);
+            }
+        }
+        return Math.max(delay, TimeUnit.MILLISECONDS.toNanos(minDelayMillis));
+    }
+    
+    private synchronized void refillBudget() {
+        //at most ten hedges can be banked for a burst of slow answers
+        budgetTokens = Math.min(10, budgetTokens + budgetPercent / 100);
+    }
+    
+    private synchronized boolean tryTakeBudget() {
+        if (budgetTokens >= 1) {
+            budgetTokens -= 1;
+            return true;
+        }
+        return false;
+    }
+    
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+    
+    private RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+    
+    private record Attempt<T>(CompletableFuture<T> future, Abort abort, boolean hedge) {}
+    
+    //aborts the HTTP request of one attempt, whether it has been created yet or not
+    private static final class Abort implements Runnable {
+        
+        private volatile boolean aborted;
+        
+        private volatile HttpUriRequestBase request;
+        
+        void bind(HttpUriRequestBase request) {
+            this.request = request;
+            if (aborted) {
+                request.cancel();
+            }
+        }
+        
+        @Override
+        public void run() {
+            aborted = true;
+            HttpUriRequestBase current = request;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+        
+        boolean isAborted() {
+            return aborted;
+        }
+    }
+    
+    private static final class AbortableRequestFactory extends HttpComponentsClientHttpRequestFactory {
+        
+        AbortableRequestFactory(HttpClient httpClient) {
+            super(httpClient);
+        }
+        
+        @Override
+        protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+            ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+            Abort abort = CURRENT_ABORT.get();
+            if (abort != null && request instanceof HttpUriRequestBase abortable) {
+                abort.bind(abortable);
+            }
+            return request;
+        }
+    }
+}
@@ -1,13 +1,32 @@
 package com.ecommerce.order.client;
 
+import java.util.List;
+
 import com.ecommerce.order.dto.ProductDto;
+import com.ecommerce.order.dto.StockAdjustment;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
-@FeignClient(name = "product-service", fallback = ProductServiceFallback.class)
+//raw Feign client; GuardedProductServiceClient is the primary bean that wraps it.
+//talks CBOR to product-service; JSON stays the default for everyone else
+@FeignClient(name = "product-service", fallback = ProductServiceFallback.class,
+        qualifiers = "productServiceFeignClient", primary = false)
 public interface ProductServiceClient {
     
-    @GetMapping("/api/products/{id}")
+    @GetMapping(value = "/api/products/{id}", produces = MediaType.APPLICATION_CBOR_VALUE)
     ProductDto getProductById(@PathVariable("id") Long id);
+    
+    @PostMapping(value = "/api/products/batch",
+            consumes = MediaType.APPLICATION_CBOR_VALUE, produces = MediaType.APPLICATION_CBOR_VALUE)
+    List<ProductDto> getProductsByIds(@RequestBody List<Long> ids);
+    
+    @PostMapping(value = "/api/products/stock/reserve", consumes = MediaType.APPLICATION_CBOR_VALUE)
+    void reserveStock(@RequestBody List<StockAdjustment> adjustments);
+    
+    @PostMapping(value = "/api/products/stock/release", consumes = MediaType.APPLICATION_CBOR_VALUE)
+    void releaseStock(@RequestBody List<StockAdjustment> adjustments);
 }
\ No newline at end of file
@@ -1,22 +1,34 @@
 package com.ecommerce.order.client;
 
-import java.math.BigDecimal;
+import java.util.List;
 
 import org.springframework.stereotype.Component;
 
 import com.ecommerce.order.dto.ProductDto;
+import com.ecommerce.order.dto.StockAdjustment;
 
 @Component
 public class ProductServiceFallback implements ProductServiceClient {
     
+    //no zero-priced placeholders; OrderService prices from the last known good snapshot and flags the order
     @Override
     public ProductDto getProductById(Long id) {
-        //return a default product or null when the product service is down
-        ProductDto fallbackProduct = new ProductDto();
-        fallbackProduct.setId(id);
-        fallbackProduct.setName("Product Unavailable");
-        fallbackProduct.setPrice(BigDecimal.ZERO);
-        fallbackProduct.setStockQuantity(0);
-        return fallbackProduct;
+        throw new RuntimeException("Product service is currently unavailable. Product " + id + " could not be loaded.");
+    }
+    
+    @Override
+    public List<ProductDto> getProductsByIds(List<Long> ids) {
+        throw new RuntimeException("Product service is currently unavailable. Products could not be loaded.");
+    }
+    
+    @Override
+    public void reserveStock(List<StockAdjustment> adjustments) {
+        //never pretend stock was reserved when the product service is down
+        throw new RuntimeException("Product service is currently unavailable. Stock could not be reserved.");
+    }
+    
+    @Override
+    public void releaseStock(List<StockAdjustment> adjustments) {
+        throw new RuntimeException("Product service is currently unavailable. Stock could not be released.");
     }
 }
\ No newline at end of file
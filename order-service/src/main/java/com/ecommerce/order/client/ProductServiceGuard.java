@@ -0,0 +1,131 @@
+package com.ecommerce.order.client;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.ecommerce.order.exception.ProductServiceOverloadedException;
+
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+//bounds calls to product-service: a fixed semaphore bulkhead plus an adaptive limit below it, both
+//rejecting immediately so a slow product-service cannot pin every request thread
+@Component
+public class ProductServiceGuard {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${order.product-client.bulkhead.max-concurrent:64}")
+    private int maxConcurrent;
+    
+    @Value("${order.product-client.limiter.initial-limit:20}")
+    private int initialLimit;
+    
+    @Value("${order.product-client.limiter.min-limit:2}")
+    private int minLimit;
+    
+    @Value("${order.product-client.limiter.max-limit:64}")
+    private int maxLimit;
+    
+    @Value("${order.product-client.limiter.backoff-ratio:0.9}")
+    private double backoffRatio;
+    
+    @Value("${order.product-client.limiter.latency-threshold-ms:500}")
+    private long latencyThresholdMillis;
+    
+    private Semaphore bulkhead;
+    
+    private AdaptiveConcurrencyLimiter limiter;
+    
+    private Counter bulkheadRejections;
+    
+    private Counter limitRejections;
+    
+    @PostConstruct
+    void init() {
+        bulkhead = new Semaphore(maxConcurrent);
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio,
+                TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis));
+        bulkheadRejections = meterRegistry.counter("order.product-client.rejected", "reason", "bulkhead");
+        limitRejections = meterRegistry.counter("order.product-client.rejected", "reason", "limit");
+        Gauge.builder("order.product-client.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit for product-service calls")
+                .register(meterRegistry);
+        Gauge.builder("order.product-client.in-flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Product-service calls in flight")
+                .register(meterRegistry);
+        Gauge.builder("order.product-client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+    
+    public <T> T call(String operation, Supplier<T> call) {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.increment();
+            throw new ProductServiceOverloadedException("Too many concurrent product-service calls");
+        }
+        try {
+            if (!limiter.tryAcquire()) {
+                limitRejections.increment();
+                throw new ProductServiceOverloadedException("Product-service concurrency limit of "
+                        + limiter.getLimit() + " reached");
+            }
+            long start = System.nanoTime();
+            boolean failed = false;
+            boolean cancelled = false;
+            try {
+                return call.get();
+            } catch (CancellationException e) {
+                cancelled = true;
+                throw e;
+            } catch (FeignException e) {
+                //4xx answers are fast, healthy responses; only transport errors and 5xx count against the limit
+                failed = e.status() < 0 || e.status() >= 500;
+                throw e;
+            } catch (HttpClientErrorException e) {
+                failed = false;
+                throw e;
+            } catch (RuntimeException e) {
+                failed = true;
+                throw e;
+            } finally {
+                long latency = System.nanoTime() - start;
+                if (cancelled) {
+                    //cut short, so its latency is no sample of how long calls take
+                    limiter.cancel(latency);
+                } else {
+                    limiter.release(latency, failed);
+                    latencyTimer(operation).record(latency, TimeUnit.NANOSECONDS);
+                }
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+    
+    public void run(String operation, Runnable call) {
+        call(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+    
+    // latency of completed product-service calls per operation, with a p95 for hedging decisions
+    public Timer latencyTimer(String operation) {
+        return Timer.builder("order.product-client.latency")
+                .tag("operation", operation)
+                .publishPercentiles(0.95)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.order.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+//application/cbor for service-to-service calls, negotiated through Accept and Content-Type.
+//Boot puts this converter where its default CBOR converter would go, after JSON, so callers
+//that accept anything still get JSON.
+@Configuration
+public class BinaryContentConfig {
+    
+    //same modules and features as the JSON mapper, so dates and decimals round-trip the same way
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
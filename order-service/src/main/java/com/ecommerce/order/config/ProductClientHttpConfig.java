@@ -0,0 +1,124 @@
+package com.ecommerce.order.config;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//pooled Apache HttpClient 5 transport for the Feign clients; replaces the default client that opens
+//a fresh HttpURLConnection per call. Spring Cloud OpenFeign builds its CloseableHttpClient on this pool.
+@Configuration
+public class ProductClientHttpConfig {
+    
+    @Value("${order.http-client.max-total:200}")
+    private int maxTotal;
+    
+    //limit per product-service instance (host:port route)
+    @Value("${order.http-client.max-per-route:50}")
+    private int maxPerRoute;
+    
+    //per-target overrides, "host:port" to connection limit
+    @Value("#{${order.http-client.max-per-target:{:}}}")
+    private Map<String, Integer> maxPerTarget;
+    
+    @Value("${order.http-client.connect-timeout-ms:2000}")
+    private long connectTimeoutMillis;
+    
+    @Value("${order.http-client.read-timeout-ms:5000}")
+    private long readTimeoutMillis;
+    
+    //kept-alive connections are retired after this long so instances that left the registry get dropped
+    @Value("${order.http-client.time-to-live-seconds:300}")
+    private long timeToLiveSeconds;
+    
+    @Value("${order.http-client.validate-after-inactivity-ms:2000}")
+    private long validateAfterInactivityMillis;
+    
+    //read timeouts per Feign method name, e.g. getProductsByIds for large batches
+    @Value("#{${order.http-client.method-read-timeouts-ms:{:}}}")
+    private Map<String, Long> methodReadTimeouts;
+    
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager feignConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager manager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                //reuse the most recently returned connection so idle ones can expire
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .setTimeToLive(TimeValue.ofSeconds(timeToLiveSeconds))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMillis))
+                        .build())
+                .build();
+        maxPerTarget.forEach((target, max) -> manager.setMaxPerRoute(new HttpRoute(httpHost(target)), max));
+        
+        Gauge.builder("order.http-client.pool.connections", manager, m -> m.getTotalStats().getLeased())
+                .tag("state", "leased").register(meterRegistry);
+        Gauge.builder("order.http-client.pool.connections", manager, m -> m.getTotalStats().getPending())
+                .tag("state", "pending").register(meterRegistry);
+        Gauge.builder("order.http-client.pool.connections", manager, m -> m.getTotalStats().getAvailable())
+                .tag("state", "idle").register(meterRegistry);
+        Gauge.builder("order.http-client.pool.max", manager, m -> m.getTotalStats().getMax())
+                .register(meterRegistry);
+        return manager;
+    }
+    
+    //applies per-method read timeouts; wraps the load-balanced client so it sees every call
+    @Bean
+    public Capability feignMethodTimeouts() {
+        return new Capability() {
+            @Override
+            public Client enrich(Client client) {
+                if (methodReadTimeouts.isEmpty()) {
+                    return client;
+                }
+                return (request, options) -> client.execute(request, optionsFor(request, options));
+            }
+        };
+    }
+    
+    //"host:port" key of order.http-client.max-per-target
+    private HttpHost httpHost(String target) {
+        int colon = target.lastIndexOf(':');
+        if (colon <= 0 || colon == target.length() - 1) {
+            throw new IllegalArgumentException("Expected host:port in order.http-client.max-per-target: " + target);
+        }
+        try {
+            return new HttpHost(target.substring(0, colon), Integer.parseInt(target.substring(colon + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port in order.http-client.max-per-target: " + target);
+        }
+    }
+    
+    private Request.Options optionsFor(Request request, Request.Options options) {
+        if (request.requestTemplate() == null || request.requestTemplate().methodMetadata() == null) {
+            return options;
+        }
+        Long readTimeout = methodReadTimeouts.get(request.requestTemplate().methodMetadata().method().getName());
+        if (readTimeout == null) {
+            return options;
+        }
+        return new Request.Options(options.connectTimeoutMillis(), TimeUnit.MILLISECONDS,
+                readTimeout, TimeUnit.MILLISECONDS, options.isFollowRedirects());
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.order.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ProductLookupConfig {
+
+    //thread pool used to resolve large carts as parallel batch calls to the product service
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService productLookupExecutor(@Value("${order.product-lookup.threads:8}") int threads) {
+        return Executors.newFixedThreadPool(threads);
+    }
+}
@@ -1,5 +1,9 @@
 package com.ecommerce.order.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -10,25 +14,49 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.ecommerce.order.dto.BulkStatusResult;
+import com.ecommerce.order.dto.BulkStatusUpdateRequest;
 import com.ecommerce.order.dto.CreateOrderRequest;
+import com.ecommerce.order.dto.ImportResult;
 import com.ecommerce.order.dto.OrderItemRequest;
+import com.ecommerce.order.dto.OrderPage;
+import com.ecommerce.order.dto.OrderView;
 import com.ecommerce.order.entity.Order;
 import com.ecommerce.order.entity.OrderItem;
 import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.entity.OrderSubmission;
+import com.ecommerce.order.exception.InvalidStatusTransitionException;
+import com.ecommerce.order.exception.SubmissionQueueFullException;
+import com.ecommerce.order.service.BulkStatusService;
+import com.ecommerce.order.service.IdempotencyService;
+import com.ecommerce.order.service.OrderExportService;
+import com.ecommerce.order.service.OrderImportService;
 import com.ecommerce.order.service.OrderService;
+import com.ecommerce.order.service.OrderStatusCounters;
+import com.ecommerce.order.service.OrderSubmissionService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -37,74 +65,211 @@ public class OrderController {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
     
+    private static final int MAX_PAGE_SIZE = 500;
+    
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 128;
+    
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+    
+    @Autowired
+    private OrderImportService orderImportService;
+    
+    @Autowired
+    private OrderExportService orderExportService;
+    
+    @Autowired
+    private BulkStatusService bulkStatusService;
+    
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     // get all orders
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
+    public ResponseEntity<List<OrderView>> getAllOrders() {
         logger.info("Fetching all orders");
-        List<Order> orders = orderService.getAllOrders();
+        List<OrderView> orders = orderService.getAllOrders();
         return ResponseEntity.ok(orders);
     }
     
+    // get orders one page at a time in creation order, resuming after the cursor of the previous page
+    @GetMapping("/page")
+    public ResponseEntity<?> getOrdersPage(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "size", defaultValue = "50") int size) {
+        logger.info("Fetching orders page after: {}", after);
+        return page(null, after, size);
+    }
+    
+    // stream all orders as newline-delimited JSON, optionally filtered by status
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamOrders(
+            @RequestParam(name = "status", required = false) OrderStatus status) {
+        logger.info("Streaming orders with status: {}", status);
+        StreamingResponseBody body = outputStream -> orderService.streamOrders(status, 
+                order -> writeLine(outputStream, order));
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+    
+    // export orders created in [from, to) as CSV or NDJSON, optionally gzipped, without loading the range into memory
+    @GetMapping("/export")
+    public ResponseEntity<?> exportOrders(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "format", defaultValue = "csv") String format,
+            @RequestParam(name = "gzip", defaultValue = "false") boolean gzip) {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            exportFormat = null;
+        }
+        if (exportFormat == null || !from.isBefore(to)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", exportFormat == null ? "Unsupported export format: " + format : "'from' must be before 'to'");
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.badRequest().body(error);
+        }
+        
+        logger.info("Exporting orders from {} to {} as {}", from, to, exportFormat);
+        OrderExportService.Format selected = exportFormat;
+        StreamingResponseBody body = outputStream -> orderExportService.export(from, to, selected, gzip, outputStream);
+        
+        String filename = "orders-" + from.toLocalDate() + "-" + to.toLocalDate() + "." + format.toLowerCase() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : selected == OrderExportService.Format.CSV ? MediaType.parseMediaType("text/csv") : APPLICATION_NDJSON;
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+    
+    // count orders per status from in-memory counters, cheap enough to poll every second
+    @GetMapping("/status-summary")
+    public ResponseEntity<Map<String, Object>> getStatusSummary() {
+        return ResponseEntity.ok(orderStatusCounters.getSummary());
+    }
+    
     // get order by id
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable("id") Long id) {
+    public ResponseEntity<OrderView> getOrderById(@PathVariable("id") Long id) {
         logger.info("Fetching order with ID: {}", id);
-        Optional<Order> order = orderService.getOrderById(id);
+        Optional<OrderView> order = orderService.getOrderById(id);
         return order.map(ResponseEntity::ok)
                    .orElse(ResponseEntity.notFound().build());
     }
     
-    // create new order
+    // create new order; repeats carrying the same Idempotency-Key replay the first response
     @PostMapping
-    public ResponseEntity<?> createOrder(@Valid @RequestBody CreateOrderRequest orderRequest) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody CreateOrderRequest orderRequest,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return placeOrder(orderRequest);
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", IDEMPOTENCY_KEY_HEADER + " must be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        return idempotencyService.execute(idempotencyKey, orderRequest, () -> placeOrder(orderRequest));
+    }
+    
+    // accept an order for asynchronous creation and return where to poll for the outcome
+    @PostMapping("/async")
+    public ResponseEntity<Map<String, String>> submitOrder(@Valid @RequestBody CreateOrderRequest orderRequest) {
         try {
-            logger.info("Creating new order for customer: {}", orderRequest.getCustomerEmail());
-            
-            // Convert DTO to entities
-            Order order = new Order();
-            order.setCustomerEmail(orderRequest.getCustomerEmail());
-            order.setCustomerName(orderRequest.getCustomerName());
-            
-            List<OrderItem> orderItems = new ArrayList<>();
-            for (OrderItemRequest itemRequest : orderRequest.getOrderItems()) {
-                OrderItem orderItem = new OrderItem();
-                orderItem.setProductId(itemRequest.getProductId());
-                orderItem.setQuantity(itemRequest.getQuantity());
-                orderItems.add(orderItem);
+            OrderSubmission submission = orderSubmissionService.submit(toOrder(orderRequest));
+            String statusUrl = "/api/orders/submissions/" + submission.getId();
+            Map<String, String> response = new HashMap<>();
+            response.put("submissionId", submission.getId());
+            response.put("status", submission.getStatus().name());
+            response.put("statusUrl", statusUrl);
+            response.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).location(URI.create(statusUrl)).body(response);
+        } catch (SubmissionQueueFullException e) {
+            logger.warn("Rejecting order for customer {}: {}", orderRequest.getCustomerEmail(), e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+        }
+    }
+    
+    // bulk import orders from a streamed CSV or NDJSON body
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importOrders(HttpServletRequest request,
+                                          @RequestParam(value = "format", required = false) String format) {
+        try {
+            OrderImportService.Format importFormat;
+            if (format != null) {
+                importFormat = OrderImportService.Format.valueOf(format.toUpperCase());
+            } else {
+                MediaType contentType = MediaType.parseMediaType(request.getContentType());
+                importFormat = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                        ? OrderImportService.Format.CSV
+                        : OrderImportService.Format.NDJSON;
             }
-            order.setOrderItems(orderItems);
-            
-            Order savedOrder = orderService.createOrder(order);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedOrder);
             
-        } catch (Exception e) {
-            logger.error("Error creating order", e);
+            ImportResult result = orderImportService.importOrders(request.getInputStream(), importFormat);
+            logger.info("Imported {} orders ({} failed) in {} ms", result.ordersImported(), result.ordersFailed(), result.durationMs());
+            return ResponseEntity.ok(result);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.error("Order import failed: {}", e.getMessage());
             Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
+            error.put("error", "Import failed: " + e.getMessage());
             error.put("timestamp", LocalDateTime.now().toString());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            return ResponseEntity.badRequest().body(error);
         }
     }
     
+    // get the status of an asynchronous order submission
+    @GetMapping("/submissions/{id}")
+    public ResponseEntity<OrderSubmission> getSubmission(@PathVariable("id") String id) {
+        return orderSubmissionService.getSubmission(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     // get orders by customer email
     @GetMapping("/customer/{email}")
-    public ResponseEntity<List<Order>> getOrdersByCustomerEmail(@PathVariable("email") String email) {
+    public ResponseEntity<List<OrderView>> getOrdersByCustomerEmail(@PathVariable("email") String email) {
         logger.info("Fetching orders for customer: {}", email);
-        List<Order> orders = orderService.getOrdersByCustomerEmail(email);
+        List<OrderView> orders = orderService.getOrdersByCustomerEmail(email);
         return ResponseEntity.ok(orders);
     }
     
     // get orders by status
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Order>> getOrdersByStatus(@PathVariable("status") OrderStatus status) {
+    public ResponseEntity<List<OrderView>> getOrdersByStatus(@PathVariable("status") OrderStatus status) {
         logger.info("Fetching orders with status: {}", status);
-        List<Order> orders = orderService.getOrdersByStatus(status);
+        List<OrderView> orders = orderService.getOrdersByStatus(status);
         return ResponseEntity.ok(orders);
     }
     
+    // get orders by status one page at a time
+    @GetMapping("/status/{status}/page")
+    public ResponseEntity<?> getOrdersByStatusPage(
+            @PathVariable("status") OrderStatus status,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "size", defaultValue = "50") int size) {
+        logger.info("Fetching orders page with status: {} after: {}", status, after);
+        return page(status, after, size);
+    }
+    
     // update order status
     @PatchMapping("/{id}/status")
     public ResponseEntity<?> updateOrderStatus(@PathVariable("id") Long id, @RequestParam OrderStatus status) {
@@ -112,6 +277,13 @@ public class OrderController {
             logger.info("Updating order {} status to {}", id, status);
             Order updatedOrder = orderService.updateOrderStatus(id, status);
             return ResponseEntity.ok(updatedOrder);
+        } catch (InvalidStatusTransitionException | ObjectOptimisticLockingFailureException e) {
+            logger.warn("Rejected status update of order {}: {}", id, e.getMessage());
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e instanceof InvalidStatusTransitionException ? e.getMessage()
+                    : "Order " + id + " was modified concurrently, retry the update");
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
         } catch (Exception e) {
             logger.error("Error updating order status", e);
             Map<String, String> error = new HashMap<>();
@@ -121,6 +293,14 @@ public class OrderController {
         }
     }
     
+    // move many orders to a new status at once, reporting the outcome for each id
+    @PatchMapping("/status")
+    public ResponseEntity<BulkStatusResult> bulkUpdateStatus(@Valid @RequestBody BulkStatusUpdateRequest request) {
+        logger.info("Bulk updating {} orders to {}", request.getOrderIds().size(), request.getStatus());
+        BulkStatusResult result = bulkStatusService.transition(request.getOrderIds(), request.getStatus(), request.getExpectedStatus());
+        return ResponseEntity.ok(result);
+    }
+    
     // delete order
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, String>> deleteOrder(@PathVariable("id") Long id) {
@@ -158,4 +338,61 @@ public class OrderController {
         health.put("timestamp", LocalDateTime.now().toString());
         return ResponseEntity.ok(health);
     }
+    
+    private ResponseEntity<?> page(OrderStatus status, String after, int size) {
+        try {
+            OrderPage page = orderService.getOrdersPage(status, after, clampPageSize(size));
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+    
+    private void writeLine(OutputStream outputStream, Object value) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private ResponseEntity<?> placeOrder(CreateOrderRequest orderRequest) {
+        try {
+            logger.info("Creating new order for customer: {}", orderRequest.getCustomerEmail());
+            Order savedOrder = orderService.createOrder(toOrder(orderRequest));
+            return ResponseEntity.status(HttpStatus.CREATED).body(savedOrder);
+            
+        } catch (Exception e) {
+            logger.error("Error creating order", e);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+    
+    // Convert DTO to entities
+    private Order toOrder(CreateOrderRequest orderRequest) {
+        Order order = new Order();
+        order.setCustomerEmail(orderRequest.getCustomerEmail());
+        order.setCustomerName(orderRequest.getCustomerName());
+        
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (OrderItemRequest itemRequest : orderRequest.getOrderItems()) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProductId(itemRequest.getProductId());
+            orderItem.setQuantity(itemRequest.getQuantity());
+            orderItems.add(orderItem);
+        }
+        order.setOrderItems(orderItems);
+        return order;
+    }
 }
\ No newline at end of file
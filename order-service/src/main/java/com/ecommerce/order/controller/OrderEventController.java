@@ -0,0 +1,75 @@
+package com.ecommerce.order.controller;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ecommerce.order.dto.CursorPage;
+import com.ecommerce.order.dto.OrderEvent;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.entity.OutboxOffset;
+import com.ecommerce.order.service.OrderEventStreamService;
+import com.ecommerce.order.service.OutboxService;
+
+@RestController
+@RequestMapping("/api/orders/events")
+public class OrderEventController {
+    
+    private static final int MAX_EVENTS = 1000;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private OrderEventStreamService orderEventStreamService;
+    
+    // get order events after an offset; nextCursor is the offset to resume from next time
+    @GetMapping
+    public ResponseEntity<CursorPage<OrderEvent>> getEvents(
+            @RequestParam(name = "after", defaultValue = "0") Long after,
+            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        List<OrderEvent> events = outboxService.getEventsAfter(after, 
+                Math.max(1, Math.min(limit, MAX_EVENTS)));
+        Long nextCursor = events.isEmpty() ? after : events.get(events.size() - 1).eventId();
+        return ResponseEntity.ok(new CursorPage<>(events, nextCursor));
+    }
+    
+    // push order events as server-sent events; browsers resume automatically through Last-Event-ID
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> streamEvents(
+            @RequestParam(name = "customerEmail", required = false) String customerEmail,
+            @RequestParam(name = "status", required = false) OrderStatus status,
+            @RequestParam(name = "lastEventId", required = false) Long lastEventIdParam,
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventIdHeader) {
+        Long lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        try {
+            SseEmitter emitter = orderEventStreamService.subscribe(customerEmail, status, lastEventId);
+            //tell nginx-style proxies not to buffer the stream
+            return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+        } catch (IllegalStateException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(error);
+        }
+    }
+    
+    // get the delivery offset of every configured sink
+    @GetMapping("/offsets")
+    public ResponseEntity<List<OutboxOffset>> getOffsets() {
+        return ResponseEntity.ok(outboxService.getOffsets());
+    }
+}
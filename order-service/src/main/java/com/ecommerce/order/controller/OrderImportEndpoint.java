@@ -0,0 +1,26 @@
+package com.ecommerce.order.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.order.service.ImportProgress;
+import com.ecommerce.order.service.OrderImportService;
+
+//actuator view of bulk imports that are still running, at /actuator/orderimports
+@Component
+@Endpoint(id = "orderimports")
+public class OrderImportEndpoint {
+    
+    @Autowired
+    private OrderImportService orderImportService;
+    
+    @ReadOperation
+    public Map<String, List<ImportProgress>> activeImports() {
+        return Map.of("active", List.copyOf(orderImportService.getActiveImports()));
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecommerce.order.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.ecommerce.order.entity.ProductSales;
+import com.ecommerce.order.entity.ProductSalesDaily;
+import com.ecommerce.order.service.SalesAggregateService;
+
+@RestController
+@RequestMapping("/api/orders/sales")
+public class SalesController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SalesController.class);
+    
+    private static final int MAX_TOP_SELLERS = 100;
+    
+    @Autowired
+    private SalesAggregateService salesAggregateService;
+    
+    // get the best selling products by units sold
+    @GetMapping("/top")
+    public ResponseEntity<List<ProductSales>> getTopSellers(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        int clamped = Math.max(1, Math.min(limit, MAX_TOP_SELLERS));
+        return ResponseEntity.ok(salesAggregateService.getTopSellers(clamped));
+    }
+    
+    // get sales totals for one product
+    @GetMapping("/products/{productId}")
+    public ResponseEntity<ProductSales> getProductSales(@PathVariable("productId") Long productId) {
+        return salesAggregateService.getProductSales(productId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    // get daily sales for one product over a date range, defaulting to the last 30 days
+    @GetMapping("/products/{productId}/daily")
+    public ResponseEntity<List<ProductSalesDaily>> getDailySales(
+            @PathVariable("productId") Long productId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        return ResponseEntity.ok(salesAggregateService.getDailySales(productId, start, end));
+    }
+    
+    // recompute the aggregates from order history
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        logger.info("Rebuilding sales aggregates");
+        return ResponseEntity.ok(salesAggregateService.rebuild());
+    }
+}
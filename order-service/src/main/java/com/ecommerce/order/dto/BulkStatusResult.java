@@ -0,0 +1,17 @@
+package com.ecommerce.order.dto;
+
+import java.util.List;
+
+import com.ecommerce.order.entity.OrderStatus;
+
+//outcome of a bulk status transition, one entry per requested order in request order
+public record BulkStatusResult(
+        OrderStatus status,
+        int updated,
+        int rejected,
+        List<Item> results) {
+
+    public enum Outcome { UPDATED, NOT_FOUND, INVALID_TRANSITION, STATUS_MISMATCH, FAILED }
+
+    public record Item(Long orderId, Outcome outcome, OrderStatus previousStatus, String error) {}
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.order.dto;
+
+import java.util.List;
+
+import com.ecommerce.order.entity.OrderStatus;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public class BulkStatusUpdateRequest {
+    
+    @NotEmpty(message = "Order IDs are required")
+    @Size(max = 10000, message = "At most 10000 orders can be updated at once")
+    private List<@NotNull Long> orderIds;
+    
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+    
+    //optional; when set only orders currently in this status are moved
+    private OrderStatus expectedStatus;
+    
+    public BulkStatusUpdateRequest() {}
+    
+    public List<Long> getOrderIds() { return orderIds; }
+    public void setOrderIds(List<Long> orderIds) { this.orderIds = orderIds; }
+    
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+    
+    public OrderStatus getExpectedStatus() { return expectedStatus; }
+    public void setExpectedStatus(OrderStatus expectedStatus) { this.expectedStatus = expectedStatus; }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.order.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+    private List<T> content;
+    private Long nextCursor;
+    private int size;
+
+    public CursorPage() {}
+    
+    public CursorPage(List<T> content, Long nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.size = content.size();
+    }
+
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+    
+    //id to pass as "after" for the next page, null when this is the last page
+    public Long getNextCursor() { return nextCursor; }
+    public void setNextCursor(Long nextCursor) { this.nextCursor = nextCursor; }
+    
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.order.dto;
+
+import java.util.List;
+
+//summary of a bulk import; errors are capped so a bad feed cannot exhaust the heap
+public record ImportResult(
+        String importId,
+        long linesRead,
+        long ordersImported,
+        long ordersFailed,
+        long durationMs,
+        double rowsPerSecond,
+        List<ImportError> errors,
+        boolean errorsTruncated) {
+
+    public record ImportError(long line, String error) {}
+}
@@ -0,0 +1,49 @@
+package com.ecommerce.order.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.ecommerce.order.entity.OrderStatus;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+//one order from a bulk import feed; status and creation time are optional for legacy data
+public class ImportedOrder {
+    
+    @NotBlank(message = "Customer email is required")
+    @Email(message = "Invalid email format")
+    private String customerEmail;
+    
+    @NotBlank(message = "Customer name is required")
+    @Size(min = 2, max = 100, message = "Customer name must be between 2 and 100 characters")
+    private String customerName;
+    
+    private OrderStatus status;
+    
+    private LocalDateTime createdAt;
+    
+    @NotEmpty(message = "Order items are required")
+    @Valid
+    private List<OrderItemRequest> orderItems;
+    
+    public ImportedOrder() {}
+    
+    public String getCustomerEmail() { return customerEmail; }
+    public void setCustomerEmail(String customerEmail) { this.customerEmail = customerEmail; }
+    
+    public String getCustomerName() { return customerName; }
+    public void setCustomerName(String customerName) { this.customerName = customerName; }
+    
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public List<OrderItemRequest> getOrderItems() { return orderItems; }
+    public void setOrderItems(List<OrderItemRequest> orderItems) { this.orderItems = orderItems; }
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.order.dto;
+
+import java.time.LocalDateTime;
+
+import com.ecommerce.order.entity.OrderEventType;
+import com.ecommerce.order.entity.OutboxEvent;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+//order lifecycle event as delivered to sinks and consumers; payload is the order as JSON
+public record OrderEvent(
+        Long eventId,
+        OrderEventType type,
+        Long orderId,
+        @JsonRawValue String payload,
+        LocalDateTime createdAt) {
+
+    public static OrderEvent from(OutboxEvent event) {
+        return new OrderEvent(event.getId(), event.getEventType(), event.getOrderId(),
+                event.getPayload(), event.getCreatedAt());
+    }
+}
@@ -0,0 +1,20 @@
+package com.ecommerce.order.dto;
+
+import java.math.BigDecimal;
+
+import com.ecommerce.order.entity.OrderItem;
+
+//read-only view of an order line, detached from the persistence context
+public record OrderItemView(
+        Long id,
+        Long productId,
+        String productName,
+        Integer quantity,
+        BigDecimal unitPrice,
+        BigDecimal totalPrice) {
+
+    public static OrderItemView from(OrderItem item) {
+        return new OrderItemView(item.getId(), item.getProductId(), item.getProductName(),
+                item.getQuantity(), item.getUnitPrice(), item.getTotalPrice());
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.order.dto;
+
+import java.util.List;
+
+//one page of orders in creation order; pass nextCursor back as "after" to continue, null on the last page
+public record OrderPage(List<OrderView> content, String nextCursor, int size) {
+    
+    public OrderPage(List<OrderView> content, String nextCursor) {
+        this(content, nextCursor, content.size());
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.order.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatus;
+
+//read-only view of an order and its items, built from already-fetched data so it never lazy-loads
+public record OrderView(
+        Long id,
+        String customerEmail,
+        String customerName,
+        BigDecimal totalAmount,
+        OrderStatus status,
+        List<OrderItemView> orderItems,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        boolean stalePricing,
+        boolean stockReserved) {
+
+    //the order's items must already be initialized, e.g. through a fetch join
+    public static OrderView from(Order order) {
+        return from(order, order.getOrderItems());
+    }
+
+    public static OrderView from(Order order, List<OrderItem> items) {
+        List<OrderItemView> itemViews = items == null
+                ? List.of()
+                : items.stream().map(OrderItemView::from).toList();
+        return new OrderView(order.getId(), order.getCustomerEmail(), order.getCustomerName(),
+                order.getTotalAmount(), order.getStatus(), itemViews,
+                order.getCreatedAt(), order.getUpdatedAt(), order.isStalePricing(), order.isStockReserved());
+    }
+}
@@ -0,0 +1,39 @@
+package com.ecommerce.order.dto;
+
+import java.util.List;
+
+import com.ecommerce.order.entity.Order;
+
+public class StockAdjustment {
+    private Long productId;
+    private Integer quantity;
+    private String reservationId;
+    
+    public StockAdjustment() {}
+    
+    public StockAdjustment(Long productId, Integer quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+    
+    public StockAdjustment(Long productId, Integer quantity, String reservationId) {
+        this(productId, quantity);
+        this.reservationId = reservationId;
+    }
+    
+    //one adjustment per order line, as reserved when the order was placed, keyed by the order's reservation
+    public static List<StockAdjustment> forOrder(Order order) {
+        return order.getOrderItems().stream()
+                .map(item -> new StockAdjustment(item.getProductId(), item.getQuantity(), order.getReservationId()))
+                .toList();
+    }
+    
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    
+    public String getReservationId() { return reservationId; }
+    public void setReservationId(String reservationId) { this.reservationId = reservationId; }
+}
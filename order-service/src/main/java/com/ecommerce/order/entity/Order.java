@@ -7,11 +7,18 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    //creation-order keyset pages, plain and per status; the first also serves date range exports
+    @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_orders_status_created_at_id", columnList = "status, created_at, id"),
+    @Index(name = "idx_orders_stock_reserved", columnList = "stock_reserved")
+})
 public class Order {
     
+    //pooled sequence ids let Hibernate batch inserts; IDENTITY forces one round trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Customer email is required")
@@ -42,6 +49,23 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    //optimistic lock; concurrent updates of the same order fail instead of overwriting each other
+    @Version
+    @Column(columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+    
+    //priced from a cached product snapshot while product-service was unavailable
+    @Column(name = "stale_pricing", columnDefinition = "BOOLEAN NOT NULL DEFAULT FALSE")
+    private boolean stalePricing;
+    
+    //false until product-service has reserved the stock, for orders taken during an outage
+    @Column(name = "stock_reserved", columnDefinition = "BOOLEAN NOT NULL DEFAULT TRUE")
+    private boolean stockReserved = true;
+    
+    //idempotency key product-service uses to apply a reservation, and its release, at most once
+    @Column(name = "reservation_id", length = 36)
+    private String reservationId;
+    
     // Constructors
     public Order() {
         this.status = OrderStatus.PENDING;
@@ -57,7 +81,10 @@ public class Order {
     // JPA lifecycle methods
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        //imported orders keep their original creation time
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
         updatedAt = LocalDateTime.now();
     }
     
@@ -90,4 +117,20 @@ public class Order {
     
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+    
+    public boolean isStalePricing() { return stalePricing; }
+    public void setStalePricing(boolean stalePricing) { this.stalePricing = stalePricing; }
+    
+    public boolean isStockReserved() { return stockReserved; }
+    public void setStockReserved(boolean stockReserved) { this.stockReserved = stockReserved; }
+    
+    public String getReservationId() { return reservationId; }
+    public void setReservationId(String reservationId) { this.reservationId = reservationId; }
+    
+    //a keyed order may hold stock from an attempt that timed out; releasing by key either returns
+    //that stock or stops the reservation from being applied later
+    public boolean mayHoldStock() { return stockReserved || reservationId != null; }
+    
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
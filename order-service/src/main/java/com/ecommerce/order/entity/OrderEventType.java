@@ -0,0 +1,7 @@
+package com.ecommerce.order.entity;
+
+public enum OrderEventType {
+    ORDER_CREATED,
+    ORDER_STATUS_CHANGED,
+    ORDER_DELETED
+}
@@ -1,10 +1,30 @@
 package com.ecommerce.order.entity;
 
+import java.util.Arrays;
+import java.util.List;
+
 public enum OrderStatus {
     PENDING,
     CONFIRMED,
     PROCESSING,
     SHIPPED,
     DELIVERED,
-    CANCELLED
+    CANCELLED;
+    
+    //orders only move forward through fulfilment, may be cancelled until shipped, and
+    //delivered or cancelled orders are final
+    public boolean canTransitionTo(OrderStatus next) {
+        if (this == DELIVERED || this == CANCELLED) {
+            return false;
+        }
+        if (next == CANCELLED) {
+            return this != SHIPPED;
+        }
+        return next.ordinal() > ordinal();
+    }
+    
+    //statuses an order may be in to move to the given one
+    public static List<OrderStatus> allowedPredecessors(OrderStatus next) {
+        return Arrays.stream(values()).filter(status -> status.canTransitionTo(next)).toList();
+    }
 }
\ No newline at end of file
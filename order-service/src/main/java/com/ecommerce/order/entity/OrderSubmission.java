@@ -0,0 +1,103 @@
+package com.ecommerce.order.entity;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Persistable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+//progress of an order accepted through the asynchronous submission endpoint
+@Entity
+@Table(name = "order_submissions")
+public class OrderSubmission implements Persistable<String> {
+    
+    @Id
+    @Column(length = 36)
+    private String id;
+    
+    @Column(name = "customer_email", nullable = false)
+    private String customerEmail;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private SubmissionStatus status;
+    
+    @Column(name = "order_id")
+    private Long orderId;
+    
+    @Column(length = 500)
+    private String error;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    //ids are generated by the service, so tell Spring Data to insert rather than merge
+    @Transient
+    private boolean isNew = true;
+    
+    public OrderSubmission() {}
+    
+    public OrderSubmission(String id, String customerEmail) {
+        this.id = id;
+        this.customerEmail = customerEmail;
+        this.status = SubmissionStatus.QUEUED;
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+    
+    @Override
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    
+    @JsonIgnore
+    @Override
+    public boolean isNew() { return isNew; }
+    
+    public String getCustomerEmail() { return customerEmail; }
+    public void setCustomerEmail(String customerEmail) { this.customerEmail = customerEmail; }
+    
+    public SubmissionStatus getStatus() { return status; }
+    public void setStatus(SubmissionStatus status) { this.status = status; }
+    
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
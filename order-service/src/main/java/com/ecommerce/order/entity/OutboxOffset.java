@@ -0,0 +1,48 @@
+package com.ecommerce.order.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+
+//last outbox event delivered to a sink, so each sink resumes where it stopped
+@Entity
+@Table(name = "outbox_offsets")
+public class OutboxOffset {
+    
+    @Id
+    @Column(name = "sink_name", length = 64)
+    private String sinkName;
+    
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public OutboxOffset() {}
+    
+    public OutboxOffset(String sinkName, Long lastEventId) {
+        this.sinkName = sinkName;
+        this.lastEventId = lastEventId;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    public String getSinkName() { return sinkName; }
+    public void setSinkName(String sinkName) { this.sinkName = sinkName; }
+    
+    public Long getLastEventId() { return lastEventId; }
+    public void setLastEventId(Long lastEventId) { this.lastEventId = lastEventId; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.order.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+//sales totals for one product on one day, bucketed by order creation date
+@Entity
+@Table(name = "product_sales_daily")
+@IdClass(ProductSalesDaily.Key.class)
+public class ProductSalesDaily {
+    
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+    
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+    
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+    
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+    
+    public ProductSalesDaily() {}
+    
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    
+    public LocalDate getSalesDate() { return salesDate; }
+    public void setSalesDate(LocalDate salesDate) { this.salesDate = salesDate; }
+    
+    public Long getUnitsSold() { return unitsSold; }
+    public void setUnitsSold(Long unitsSold) { this.unitsSold = unitsSold; }
+    
+    public BigDecimal getRevenue() { return revenue; }
+    public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+    
+    public Long getOrderCount() { return orderCount; }
+    public void setOrderCount(Long orderCount) { this.orderCount = orderCount; }
+    
+    public static class Key implements Serializable {
+        
+        private Long productId;
+        private LocalDate salesDate;
+        
+        public Key() {}
+        
+        public Key(Long productId, LocalDate salesDate) {
+            this.productId = productId;
+            this.salesDate = salesDate;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(productId, key.productId) && Objects.equals(salesDate, key.salesDate);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, salesDate);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.ecommerce.order.entity;
+
+public enum SubmissionStatus {
+    QUEUED,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.order.event;
+
+import java.util.function.Consumer;
+
+//carries cache invalidations between order-service instances; keys are customer emails
+public interface CacheInvalidationBroadcast {
+    
+    //announce that a key changed, after the change is committed
+    void publish(String key);
+    
+    //register a listener for invalidations, including this instance's own
+    void subscribe(Consumer<String> listener);
+}
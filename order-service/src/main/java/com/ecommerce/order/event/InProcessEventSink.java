@@ -0,0 +1,30 @@
+package com.ecommerce.order.event;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.order.dto.OrderEvent;
+
+//publishes order events as Spring application events for listeners in this service. Like every sink it has one
+//delivery offset in the shared database, so with several instances each event reaches the listeners of exactly one
+//of them, whichever relay delivered its batch. That suits work that must happen once per event; state that every
+//instance keeps for itself has to tail the outbox on its own, as OutboxInvalidationBroadcast does
+@Component
+public class InProcessEventSink implements OrderEventSink {
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Override
+    public String getName() {
+        return "in-process";
+    }
+    
+    @Override
+    public void publish(List<OrderEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.order.event;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+//delivers invalidations to listeners in this instance only; for single-instance deployments and tests
+@Component
+@ConditionalOnProperty(name = "order.customer-cache.broadcast", havingValue = "in-process", matchIfMissing = true)
+public class InProcessInvalidationBroadcast implements CacheInvalidationBroadcast {
+    
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    
+    @Override
+    public void publish(String key) {
+        listeners.forEach(listener -> listener.accept(key));
+    }
+    
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+}
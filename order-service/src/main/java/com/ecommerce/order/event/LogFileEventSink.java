@@ -0,0 +1,51 @@
+package com.ecommerce.order.event;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.order.dto.OrderEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+//appends order events to a file as newline-delimited JSON
+@Component
+@ConditionalOnProperty(name = "order.outbox.log-file.path")
+public class LogFileEventSink implements OrderEventSink {
+    
+    private final Path path;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    public LogFileEventSink(@Value("${order.outbox.log-file.path}") String path) {
+        this.path = Paths.get(path);
+    }
+    
+    @Override
+    public String getName() {
+        return "log-file";
+    }
+    
+    @Override
+    public synchronized void publish(List<OrderEvent> events) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (OrderEvent event : events) {
+                writer.write(objectMapper.writeValueAsString(event));
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.order.event;
+
+import java.util.List;
+
+import com.ecommerce.order.dto.OrderEvent;
+
+//destination for order events drained from the outbox; a batch that throws is redelivered
+public interface OrderEventSink {
+    
+    //stable name used as the key of this sink's delivery offset; the offset is shared by all instances, so each
+    //batch is published by one instance only
+    String getName();
+    
+    void publish(List<OrderEvent> events) throws Exception;
+}
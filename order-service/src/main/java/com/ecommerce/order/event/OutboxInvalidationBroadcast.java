@@ -0,0 +1,83 @@
+package com.ecommerce.order.event;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.order.dto.OrderEvent;
+import com.ecommerce.order.service.OutboxService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+//every instance tails the shared outbox on its own and invalidates the customers of orders changed elsewhere;
+//writes already record an outbox event, so publishing is a no-op
+@Component
+@ConditionalOnProperty(name = "order.customer-cache.broadcast", havingValue = "outbox")
+public class OutboxInvalidationBroadcast implements CacheInvalidationBroadcast {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutboxInvalidationBroadcast.class);
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${order.customer-cache.outbox-batch-size:500}")
+    private int batchSize;
+    
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    
+    //in-memory position; a restarted instance starts with an empty cache so it can start from the tail
+    private volatile Long lastEventId;
+    
+    @Override
+    public void publish(String key) {
+    }
+    
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+    
+    @Scheduled(fixedDelayString = "${order.customer-cache.outbox-poll-ms:500}")
+    public void poll() {
+        try {
+            if (lastEventId == null) {
+                lastEventId = outboxService.getLatestEventId();
+                return;
+            }
+            List<OrderEvent> events;
+            do {
+                events = outboxService.getEventsAfter(lastEventId, batchSize);
+                for (OrderEvent event : events) {
+                    String email = customerEmail(event);
+                    if (email != null) {
+                        listeners.forEach(listener -> listener.accept(email));
+                    }
+                    lastEventId = event.eventId();
+                }
+            } while (events.size() == batchSize);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read outbox for cache invalidation: {}", e.getMessage());
+        }
+    }
+    
+    private String customerEmail(OrderEvent event) {
+        try {
+            JsonNode email = objectMapper.readTree(event.payload()).get("customerEmail");
+            return email != null ? email.asText() : null;
+        } catch (Exception e) {
+            logger.warn("Unreadable payload on outbox event {}", event.eventId());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.order.event;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import com.ecommerce.order.dto.OrderEvent;
+
+//posts each batch of order events as a JSON array to a configured URL
+@Component
+@ConditionalOnProperty(name = "order.outbox.webhook.url")
+public class WebhookEventSink implements OrderEventSink {
+    
+    private final RestClient restClient;
+    
+    public WebhookEventSink(@Value("${order.outbox.webhook.url}") String url) {
+        this.restClient = RestClient.builder().baseUrl(url).build();
+    }
+    
+    @Override
+    public String getName() {
+        return "webhook";
+    }
+    
+    @Override
+    public void publish(List<OrderEvent> events) {
+        //non-2xx responses throw, which leaves the offset in place for redelivery
+        restClient.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(events)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.order.exception;
+
+import com.ecommerce.order.entity.OrderStatus;
+
+public class InvalidStatusTransitionException extends RuntimeException {
+    
+    public InvalidStatusTransitionException(Long orderId, OrderStatus from, OrderStatus to) {
+        super("Order " + orderId + " cannot move from " + from + " to " + to);
+    }
+}
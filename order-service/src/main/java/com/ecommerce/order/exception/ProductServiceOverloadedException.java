@@ -0,0 +1,8 @@
+package com.ecommerce.order.exception;
+
+public class ProductServiceOverloadedException extends RuntimeException {
+    
+    public ProductServiceOverloadedException(String message) {
+        super(message);
+    }
+}
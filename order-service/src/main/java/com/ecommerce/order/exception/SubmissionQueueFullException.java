@@ -0,0 +1,8 @@
+package com.ecommerce.order.exception;
+
+public class SubmissionQueueFullException extends RuntimeException {
+    
+    public SubmissionQueueFullException(String message) {
+        super(message);
+    }
+}
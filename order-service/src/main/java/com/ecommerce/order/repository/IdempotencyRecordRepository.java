@@ -0,0 +1,30 @@
+package com.ecommerce.order.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.order.entity.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    //remove keys older than the replay window
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :olderThan")
+    int deleteOlderThan(@Param("olderThan") LocalDateTime olderThan);
+    
+    //take over a key claimed longer ago than the lease without a response, e.g. because its instance died, or whose
+    //stored response is past the replay window; 0 when the key is still held or replayable
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.requestHash = :requestHash, r.completed = false, r.responseStatus = null, " +
+           "r.responseBody = null, r.createdAt = :now, r.claimedAt = :now WHERE r.key = :key AND " +
+           "((r.completed = false AND COALESCE(r.claimedAt, r.createdAt) < :leaseExpiredBefore) OR r.createdAt < :expiredBefore)")
+    int takeOver(@Param("key") String key, @Param("requestHash") String requestHash, @Param("now") LocalDateTime now,
+                 @Param("leaseExpiredBefore") LocalDateTime leaseExpiredBefore,
+                 @Param("expiredBefore") LocalDateTime expiredBefore);
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.order.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -15,10 +16,13 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     //find order items by order ID
     List<OrderItem> findByOrderId(Long orderId);
     
+    //find order items for a set of orders in one query
+    List<OrderItem> findByOrderIdIn(Collection<Long> orderIds);
+    
     //find order items by product ID
     List<OrderItem> findByProductId(Long productId);
     
-    //get total quantity sold for a product
+    //get total quantity sold for a product; scans order_items, dashboards read SalesAggregateService instead
     @Query("SELECT SUM(oi.quantity) FROM OrderItem oi WHERE oi.productId = :productId")
     Integer getTotalQuantitySoldForProduct(@Param("productId") Long productId);
 }
\ No newline at end of file
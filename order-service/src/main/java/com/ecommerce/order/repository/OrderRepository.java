@@ -1,16 +1,26 @@
 package com.ecommerce.order.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.ecommerce.order.entity.Order;
 import com.ecommerce.order.entity.OrderStatus;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
@@ -27,4 +37,79 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate")
     List<Order> findOrdersBetweenDates(@Param("startDate") LocalDateTime startDate, 
                                       @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+    
+    //keyset pagination in creation order, ties broken by id. Ids alone cannot be the key: they come from
+    //per-instance sequence blocks, so a later order can get a lower id and would land behind an open cursor
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt, o.id")
+    List<Order> findFirstPage(Limit limit);
+    
+    @Query("SELECT o FROM Order o WHERE o.createdAt > :createdAt OR (o.createdAt = :createdAt AND o.id > :id) " +
+           "ORDER BY o.createdAt, o.id")
+    List<Order> findPageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+    
+    @Query("SELECT o FROM Order o WHERE o.status = :status ORDER BY o.createdAt, o.id")
+    List<Order> findFirstPageByStatus(@Param("status") OrderStatus status, Limit limit);
+    
+    @Query("SELECT o FROM Order o WHERE o.status = :status " +
+           "AND (o.createdAt > :createdAt OR (o.createdAt = :createdAt AND o.id > :id)) ORDER BY o.createdAt, o.id")
+    List<Order> findPageByStatusAfter(@Param("status") OrderStatus status, @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id, Limit limit);
+    
+    //stream every order with its items through a server-side cursor instead of loading the table
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems ORDER BY o.id")
+    Stream<Order> streamAll();
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.status = :status ORDER BY o.id")
+    Stream<Order> streamByStatus(@Param("status") OrderStatus status);
+    
+    //read queries that fetch the items in the same statement, so no per-order item query follows
+    @EntityGraph(attributePaths = "orderItems")
+    @Query("SELECT o FROM Order o ORDER BY o.id")
+    List<Order> findAllWithItems();
+    
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findWithItemsById(Long id);
+    
+    @EntityGraph(attributePaths = "orderItems")
+    List<Order> findWithItemsByCustomerEmail(String customerEmail);
+    
+    @EntityGraph(attributePaths = "orderItems")
+    List<Order> findWithItemsByStatus(OrderStatus status);
+    
+    @EntityGraph(attributePaths = "orderItems")
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+    
+    //current status of each order, row-locked until the transaction ends so a bulk transition sees stable state
+    @Query(value = "SELECT id, status FROM orders WHERE id IN (:ids) FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockStatuses(@Param("ids") Collection<Long> ids);
+    
+    //set-based status transition; bumps the version so in-flight single updates fail their optimistic check
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now, o.version = o.version + 1 " +
+           "WHERE o.id IN :ids AND o.status IN :from")
+    int transitionStatus(@Param("ids") Collection<Long> ids, @Param("from") Collection<OrderStatus> from,
+                         @Param("status") OrderStatus status, @Param("now") LocalDateTime now);
+    
+    //order count per status in one grouped query
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countByStatus();
+    
+    //orders taken during a product-service outage whose stock is still to be reserved; only the outage
+    //fallback prices from snapshots, so imported history, which holds no stock either, is never matched
+    @Query("SELECT o.id FROM Order o WHERE o.stockReserved = false AND o.stalePricing = true " +
+           "AND o.status IN :statuses ORDER BY o.id")
+    List<Long> findIdsAwaitingReservation(@Param("statuses") Collection<OrderStatus> statuses, Limit limit);
+    
+    //only succeeds while the order is still live, so stock is never held for an order cancelled meanwhile
+    @Modifying
+    @Query("UPDATE Order o SET o.stockReserved = true, o.version = o.version + 1 " +
+           "WHERE o.id = :id AND o.stockReserved = false AND o.status <> com.ecommerce.order.entity.OrderStatus.CANCELLED")
+    int markStockReserved(@Param("id") Long id);
+    
+    //orders saved before reservation ids existed get one before their first reservation attempt
+    @Modifying
+    @Query("UPDATE Order o SET o.reservationId = :reservationId WHERE o.id = :id AND o.reservationId IS NULL")
+    int assignReservationId(@Param("id") Long id, @Param("reservationId") String reservationId);
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.order.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.order.entity.OrderSubmission;
+import com.ecommerce.order.entity.SubmissionStatus;
+
+@Repository
+public interface OrderSubmissionRepository extends JpaRepository<OrderSubmission, String> {
+    
+    //move a submission to a new status without reading it first
+    @Modifying
+    @Query("UPDATE OrderSubmission s SET s.status = :status, s.orderId = :orderId, s.error = :error, " +
+           "s.updatedAt = CURRENT_TIMESTAMP WHERE s.id = :id")
+    int updateStatus(@Param("id") String id, @Param("status") SubmissionStatus status,
+                     @Param("orderId") Long orderId, @Param("error") String error);
+    
+    //move a submission to a new status only if it is still in the expected one
+    @Modifying
+    @Query("UPDATE OrderSubmission s SET s.status = :status, s.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE s.id = :id AND s.status = :expected")
+    int updateStatusIf(@Param("id") String id, @Param("expected") SubmissionStatus expected,
+                       @Param("status") SubmissionStatus status);
+    
+    //fail submissions that have sat in one of the given states since before the given time
+    @Modifying
+    @Query("UPDATE OrderSubmission s SET s.status = :failed, s.error = :error, s.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE s.status IN :stuck AND s.updatedAt < :olderThan")
+    int failStuck(@Param("stuck") Collection<SubmissionStatus> stuck, @Param("olderThan") LocalDateTime olderThan,
+                  @Param("failed") SubmissionStatus failed, @Param("error") String error);
+    
+    //remove submissions that have not changed since the given time
+    @Modifying
+    @Query("DELETE FROM OrderSubmission s WHERE s.updatedAt < :olderThan")
+    int deleteOlderThan(@Param("olderThan") LocalDateTime olderThan);
+}
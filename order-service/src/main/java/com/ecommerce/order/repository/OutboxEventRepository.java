@@ -0,0 +1,30 @@
+package com.ecommerce.order.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.order.entity.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    //next batch of visible events after an offset; OutboxService cuts it at ids that may still be committing
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id > :afterId ORDER BY e.id")
+    List<OutboxEvent> findBatchAfter(@Param("afterId") Long afterId, Limit limit);
+    
+    //highest event id written so far, 0 when the outbox is empty
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM OutboxEvent e")
+    Long findMaxId();
+    
+    //remove events every sink has already delivered
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.id <= :upToId AND e.createdAt < :olderThan")
+    int deleteDelivered(@Param("upToId") Long upToId, @Param("olderThan") LocalDateTime olderThan);
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.order.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.order.entity.OutboxOffset;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface OutboxOffsetRepository extends JpaRepository<OutboxOffset, String> {
+    
+    //lock the sink's offset row so only one order-service instance relays to it at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OutboxOffset o WHERE o.sinkName = :sinkName")
+    Optional<OutboxOffset> findForUpdate(@Param("sinkName") String sinkName);
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.order.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.order.entity.ProductSalesDaily;
+
+@Repository
+public interface ProductSalesDailyRepository extends JpaRepository<ProductSalesDaily, ProductSalesDaily.Key> {
+    
+    //daily buckets for a product over an inclusive date range
+    List<ProductSalesDaily> findByProductIdAndSalesDateBetweenOrderBySalesDate(Long productId, LocalDate from, LocalDate to);
+}
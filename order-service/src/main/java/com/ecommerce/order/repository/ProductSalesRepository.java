@@ -0,0 +1,16 @@
+package com.ecommerce.order.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.ecommerce.order.entity.ProductSales;
+
+@Repository
+public interface ProductSalesRepository extends JpaRepository<ProductSales, Long> {
+    
+    //best sellers by units, served from the units_sold index
+    List<ProductSales> findAllByOrderByUnitsSoldDesc(Limit limit);
+}
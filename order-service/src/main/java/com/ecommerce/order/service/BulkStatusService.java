@@ -0,0 +1,156 @@
+package com.ecommerce.order.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.order.client.ProductServiceClient;
+import com.ecommerce.order.dto.BulkStatusResult;
+import com.ecommerce.order.dto.BulkStatusResult.Item;
+import com.ecommerce.order.dto.BulkStatusResult.Outcome;
+import com.ecommerce.order.dto.StockAdjustment;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderEventType;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.repository.OrderRepository;
+
+//moves many orders to a new status with set-based updates, one transaction per chunk of ids
+@Service
+public class BulkStatusService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BulkStatusService.class);
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private SalesAggregateService salesAggregateService;
+    
+    @Autowired
+    private CustomerOrderCache customerOrderCache;
+    
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+    
+    @Autowired
+    private ProductServiceClient productServiceClient;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${order.bulk-status.chunk-size:500}")
+    private int chunkSize;
+    
+    // transition every order to the target status, optionally only those currently in expectedStatus
+    public BulkStatusResult transition(List<Long> orderIds, OrderStatus target, OrderStatus expectedStatus) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        Map<Long, Item> results = new HashMap<>();
+        
+        for (int start = 0; start < ids.size(); start += chunkSize) {
+            List<Long> chunk = ids.subList(start, Math.min(start + chunkSize, ids.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> transitionChunk(chunk, target, expectedStatus, results));
+            } catch (RuntimeException e) {
+                //the whole chunk rolled back, so none of it moved
+                logger.error("Bulk transition of {} orders to {} failed", chunk.size(), target, e);
+                for (Long id : chunk) {
+                    Item previous = results.get(id);
+                    if (previous == null || previous.outcome() == Outcome.UPDATED) {
+                        results.put(id, new Item(id, Outcome.FAILED,
+                                previous != null ? previous.previousStatus() : null, e.getMessage()));
+                    }
+                }
+            }
+        }
+        
+        List<Item> ordered = new ArrayList<>(ids.size());
+        int updated = 0;
+        for (Long id : ids) {
+            Item item = results.get(id);
+            ordered.add(item);
+            if (item.outcome() == Outcome.UPDATED) {
+                updated++;
+            }
+        }
+        logger.info("Bulk transition to {}: {} of {} orders updated", target, updated, ids.size());
+        return new BulkStatusResult(target, updated, ids.size() - updated, ordered);
+    }
+    
+    private void transitionChunk(List<Long> chunk, OrderStatus target, OrderStatus expectedStatus, Map<Long, Item> results) {
+        //lock the rows and classify each id before touching anything
+        Map<Long, OrderStatus> current = new HashMap<>();
+        for (Object[] row : orderRepository.lockStatuses(chunk)) {
+            current.put(((Number) row[0]).longValue(), OrderStatus.valueOf((String) row[1]));
+        }
+        
+        List<Long> movable = new ArrayList<>();
+        for (Long id : chunk) {
+            OrderStatus status = current.get(id);
+            if (status == null) {
+                results.put(id, new Item(id, Outcome.NOT_FOUND, null, "Order not found"));
+            } else if (expectedStatus != null && status != expectedStatus) {
+                results.put(id, new Item(id, Outcome.STATUS_MISMATCH, status, "Order is " + status + ", expected " + expectedStatus));
+            } else if (!status.canTransitionTo(target)) {
+                results.put(id, new Item(id, Outcome.INVALID_TRANSITION, status, "Cannot move from " + status + " to " + target));
+            } else {
+                movable.add(id);
+                results.put(id, new Item(id, Outcome.UPDATED, status, null));
+            }
+        }
+        if (movable.isEmpty()) {
+            return;
+        }
+        
+        List<OrderStatus> from = expectedStatus != null ? List.of(expectedStatus) : OrderStatus.allowedPredecessors(target);
+        int updated = orderRepository.transitionStatus(movable, from, target, LocalDateTime.now());
+        if (updated != movable.size()) {
+            //cannot happen while the rows are locked; roll back rather than report the wrong outcome
+            throw new IllegalStateException("Expected to update " + movable.size() + " orders but updated " + updated);
+        }
+        
+        //per-order side effects of the same transition the single-order path performs
+        List<Order> orders = orderRepository.findWithItemsByIdIn(movable);
+        List<StockAdjustment> released = new ArrayList<>();
+        for (Order order : orders) {
+            outboxService.record(order, OrderEventType.ORDER_STATUS_CHANGED);
+            salesAggregateService.recordStatusChange(order, current.get(order.getId()));
+            customerOrderCache.invalidate(order.getCustomerEmail());
+            orderStatusCounters.recordTransition(current.get(order.getId()), target);
+            if (target == OrderStatus.CANCELLED && order.mayHoldStock()) {
+                released.addAll(StockAdjustment.forOrder(order));
+            }
+        }
+        if (!released.isEmpty()) {
+            releaseStockAfterCommit(released);
+        }
+    }
+    
+    //hand the stock back only once the cancellations are committed, so a chunk that rolls back keeps its reservations
+    private void releaseStockAfterCommit(List<StockAdjustment> released) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    productServiceClient.releaseStock(released);
+                } catch (Exception e) {
+                    logger.error("Failed to release stock of {} cancelled order lines", released.size(), e);
+                }
+            }
+        });
+    }
+}
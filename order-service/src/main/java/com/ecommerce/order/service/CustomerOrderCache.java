@@ -0,0 +1,165 @@
+package com.ecommerce.order.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ecommerce.order.dto.OrderView;
+import com.ecommerce.order.event.CacheInvalidationBroadcast;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+//order history per customer email, bounded by size and TTL; writers invalidate synchronously and
+//other instances hear about it through the invalidation broadcast
+@Component
+public class CustomerOrderCache {
+    
+    @Autowired
+    private CacheInvalidationBroadcast broadcast;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${order.customer-cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${order.customer-cache.max-size:10000}")
+    private int maxSize;
+    
+    @Value("${order.customer-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+    
+    //least recently used first; guarded by its own monitor
+    private LinkedHashMap<String, Entry> entries;
+    
+    //bumped by every invalidation so a load that raced with a write is not cached
+    private long generation;
+    
+    private Counter hits;
+    private Counter misses;
+    private Counter sizeEvictions;
+    private Counter expiredEvictions;
+    private Counter invalidations;
+    
+    @PostConstruct
+    void init() {
+        entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        hits = meterRegistry.counter("order.customer-cache.requests", "result", "hit");
+        misses = meterRegistry.counter("order.customer-cache.requests", "result", "miss");
+        sizeEvictions = meterRegistry.counter("order.customer-cache.evictions", "cause", "size");
+        expiredEvictions = meterRegistry.counter("order.customer-cache.evictions", "cause", "expired");
+        invalidations = meterRegistry.counter("order.customer-cache.invalidations");
+        Gauge.builder("order.customer-cache.size", this, cache -> cache.size()).register(meterRegistry);
+        broadcast.subscribe(this::evict);
+    }
+    
+    // cached orders for a customer, loading and caching them on a miss
+    public List<OrderView> get(String email, Supplier<List<OrderView>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        String key = key(email);
+        long loadGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.isExpired()) {
+                hits.increment();
+                return entry.orders();
+            }
+            if (entry != null) {
+                entries.remove(key);
+                expiredEvictions.increment();
+            }
+            loadGeneration = generation;
+        }
+        
+        misses.increment();
+        List<OrderView> orders = List.copyOf(loader.get());
+        synchronized (entries) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry(orders, System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+            }
+        }
+        return orders;
+    }
+    
+    // drop a customer's entry now and again once the surrounding transaction commits, then tell other instances
+    public void invalidate(String email) {
+        String key = key(email);
+        invalidations.increment();
+        evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(key);
+                    broadcast.publish(key);
+                }
+            });
+        } else {
+            broadcast.publish(key);
+        }
+    }
+    
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    //expired entries are otherwise only found on access
+    @Scheduled(fixedDelayString = "${order.customer-cache.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isExpired()) {
+                    iterator.remove();
+                    expiredEvictions.increment();
+                }
+            }
+        }
+    }
+    
+    private void evict(String email) {
+        String key = key(email);
+        synchronized (entries) {
+            generation++;
+            entries.remove(key);
+        }
+    }
+    
+    //MySQL compares emails case-insensitively, so the cache does too
+    private String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+    
+    private record Entry(List<OrderView> orders, long expiresAtNanos) {
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
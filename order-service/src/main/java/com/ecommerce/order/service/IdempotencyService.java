@@ -0,0 +1,261 @@
+package com.ecommerce.order.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.order.entity.IdempotencyRecord;
+import com.ecommerce.order.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+
+//runs a request at most once per Idempotency-Key and replays the stored response for repeats
+@Service
+public class IdempotencyService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+    
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${order.idempotency.cache-size:10000}")
+    private int cacheSize;
+    
+    @Value("${order.idempotency.ttl-hours:24}")
+    private long ttlHours;
+    
+    @Value("${order.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMillis;
+    
+    //how long a claimed key stays taken without a response; must outlast the slowest request
+    @Value("${order.idempotency.lease-ms:60000}")
+    private long leaseMillis;
+    
+    //recently completed responses, least recently used evicted first
+    private Map<String, StoredResponse> completed;
+    
+    //executions currently running on this instance, joined by concurrent duplicates
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    void init() {
+        completed = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+    
+    public ResponseEntity<?> execute(String key, Object request, Supplier<ResponseEntity<?>> action) {
+        String requestHash = hash(request);
+        
+        StoredResponse stored = findCompleted(key);
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+        
+        CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, execution);
+        if (running != null) {
+            //a duplicate is already executing here, wait for it instead of running in parallel
+            return replay(await(key, running), requestHash);
+        }
+        
+        try {
+            return executeOnce(key, requestHash, action, execution);
+        } catch (RuntimeException e) {
+            execution.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+    
+    // drop stored keys once they are past the replay window
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime olderThan = LocalDateTime.now().minusHours(ttlHours);
+        Integer purged = transactionTemplate.execute(
+                status -> idempotencyRecordRepository.deleteOlderThan(olderThan));
+        logger.info("Purged {} expired idempotency keys", purged);
+    }
+    
+    private ResponseEntity<?> executeOnce(String key, String requestHash, Supplier<ResponseEntity<?>> action,
+                                          CompletableFuture<StoredResponse> execution) {
+        //a previous execution may have finished between the cache check and taking the in-flight slot
+        StoredResponse stored = findCompleted(key);
+        if (stored != null) {
+            execution.complete(stored);
+            return replay(stored, requestHash);
+        }
+        
+        //claim the key in the database so other instances see it as taken
+        IdempotencyRecord record;
+        try {
+            record = idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, requestHash));
+        } catch (DataIntegrityViolationException e) {
+            stored = loadCompleted(key);
+            if (stored != null) {
+                execution.complete(stored);
+                return replay(stored, requestHash);
+            }
+            record = takeOver(key, requestHash);
+        }
+        if (record == null) {
+            StoredResponse conflict = new StoredResponse(requestHash, HttpStatus.CONFLICT.value(),
+                    toJson(error("A request with this Idempotency-Key is already being processed")), 
+                    LocalDateTime.now());
+            execution.complete(conflict);
+            return replay(conflict, requestHash);
+        }
+        
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            idempotencyRecordRepository.deleteById(key);
+            throw e;
+        }
+        
+        StoredResponse result = new StoredResponse(requestHash, response.getStatusCode().value(),
+                toJson(response.getBody()), LocalDateTime.now());
+        if (response.getStatusCode().is2xxSuccessful()) {
+            record.setCompleted(true);
+            record.setResponseStatus(result.status());
+            record.setResponseBody(result.body());
+            idempotencyRecordRepository.save(record);
+            completed.put(key, result);
+        } else {
+            //failures are not remembered, so the client may retry with the same key
+            idempotencyRecordRepository.deleteById(key);
+        }
+        execution.complete(result);
+        return response;
+    }
+    
+    //claim a key left behind by an abandoned execution or past its replay window, null while it is still held
+    private IdempotencyRecord takeOver(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer taken = transactionTemplate.execute(status -> idempotencyRecordRepository.takeOver(key, requestHash, now,
+                now.minusNanos(leaseMillis * 1_000_000), now.minusHours(ttlHours)));
+        if (taken == null || taken == 0) {
+            return null;
+        }
+        logger.info("Took over Idempotency-Key {} from an abandoned or expired execution", key);
+        completed.remove(key);
+        return idempotencyRecordRepository.findById(key).orElse(null);
+    }
+    
+    private StoredResponse findCompleted(String key) {
+        StoredResponse stored = completed.get(key);
+        if (stored != null && !isExpired(stored.createdAt())) {
+            return stored;
+        }
+        return loadCompleted(key);
+    }
+    
+    private StoredResponse loadCompleted(String key) {
+        return idempotencyRecordRepository.findById(key)
+                .filter(IdempotencyRecord::isCompleted)
+                .filter(record -> !isExpired(record.getCreatedAt()))
+                .map(record -> {
+                    StoredResponse stored = new StoredResponse(record.getRequestHash(),
+                            record.getResponseStatus(), record.getResponseBody(), record.getCreatedAt());
+                    completed.put(key, stored);
+                    return stored;
+                })
+                .orElse(null);
+    }
+    
+    private StoredResponse await(String key, CompletableFuture<StoredResponse> running) {
+        try {
+            return running.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for request with Idempotency-Key " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for request with Idempotency-Key " + key);
+        }
+    }
+    
+    private ResponseEntity<?> replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(error("Idempotency-Key was already used with a different request body"));
+        }
+        return ResponseEntity.status(stored.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body());
+    }
+    
+    private boolean isExpired(LocalDateTime createdAt) {
+        return createdAt.isBefore(LocalDateTime.now().minusHours(ttlHours));
+    }
+    
+    private Map<String, String> error(String message) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", message);
+        error.put("timestamp", LocalDateTime.now().toString());
+        return error;
+    }
+    
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(toJson(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+    }
+    
+    private record StoredResponse(String requestHash, int status, String body, LocalDateTime createdAt) {}
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.order.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ecommerce.order.dto.ImportResult;
+import com.ecommerce.order.dto.ImportResult.ImportError;
+
+//live counters for one running bulk import, readable while the import is in progress
+public class ImportProgress {
+    
+    private final String id;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final int maxErrors;
+    
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong ordersImported = new AtomicLong();
+    private final AtomicLong ordersFailed = new AtomicLong();
+    private final List<ImportError> errors = new ArrayList<>();
+    private volatile boolean errorsTruncated;
+    
+    public ImportProgress(String id, int maxErrors) {
+        this.id = id;
+        this.maxErrors = maxErrors;
+    }
+    
+    void lineRead() {
+        linesRead.incrementAndGet();
+    }
+    
+    void imported(int count) {
+        ordersImported.addAndGet(count);
+    }
+    
+    void failed(long line, String error) {
+        ordersFailed.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportError(line, error));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+    
+    public String getId() { return id; }
+    
+    public Instant getStartedAt() { return startedAt; }
+    
+    public long getLinesRead() { return linesRead.get(); }
+    
+    public long getOrdersImported() { return ordersImported.get(); }
+    
+    public long getOrdersFailed() { return ordersFailed.get(); }
+    
+    public double getRowsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return seconds > 0 ? linesRead.get() / seconds : 0;
+    }
+    
+    ImportResult toResult() {
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        synchronized (errors) {
+            return new ImportResult(id, linesRead.get(), ordersImported.get(), ordersFailed.get(),
+                    durationMs, getRowsPerSecond(), List.copyOf(errors), errorsTruncated);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.ecommerce.order.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.ecommerce.order.dto.OrderEvent;
+import com.ecommerce.order.entity.OrderStatus;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+//pushes order events to server-sent event subscribers; every instance tails the shared outbox itself, so a
+//subscriber sees changes made anywhere, and event ids are outbox ids so clients resume with Last-Event-ID
+@Service
+public class OrderEventStreamService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventStreamService.class);
+    
+    //queued in place of an event when a subscriber has been idle, to keep proxies from closing the stream
+    private static final StreamEvent HEARTBEAT = new StreamEvent(null, null, null, null);
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${order.stream.buffer-size:256}")
+    private int bufferSize;
+    
+    @Value("${order.stream.max-subscribers:1000}")
+    private int maxSubscribers;
+    
+    @Value("${order.stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+    
+    @Value("${order.stream.sender-threads:4}")
+    private int senderThreads;
+    
+    @Value("${order.stream.batch-size:500}")
+    private int batchSize;
+    
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    
+    //highest outbox id fanned out to live subscribers; null until the first subscriber arrives
+    private Long position;
+    
+    private ExecutorService senders;
+    
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-stream-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("order.stream.subscribers", subscribers, Set::size)
+                .description("Open order event streams")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+    
+    // open a stream of order events, optionally filtered, resuming after lastEventId when given
+    public SseEmitter subscribe(String customerEmail, OrderStatus status, Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many open order event streams");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter,
+                customerEmail != null ? customerEmail.toLowerCase(Locale.ROOT) : null, status);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> disconnect(subscriber, "timeout"));
+        emitter.onError(error -> disconnect(subscriber, "error"));
+        
+        synchronized (this) {
+            if (position == null) {
+                position = outboxService.getLatestEventId();
+            }
+            //a subscriber behind the live position catches up from the outbox and only then joins the live events
+            if (lastEventId != null && lastEventId < position) {
+                subscriber.replayFrom = lastEventId;
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.schedule();
+        return emitter;
+    }
+    
+    // read new outbox events and hand them to every matching subscriber
+    @Scheduled(fixedDelayString = "${order.stream.poll-interval-ms:250}")
+    public void poll() {
+        if (subscribers.isEmpty()) {
+            synchronized (this) {
+                //nobody is listening; start from the tail again when someone subscribes
+                position = null;
+            }
+            return;
+        }
+        try {
+            List<OrderEvent> events;
+            do {
+                Long from;
+                synchronized (this) {
+                    from = position;
+                }
+                if (from == null) {
+                    return;
+                }
+                //query and parse without the lock, so subscribers and catching-up replays never wait on the database;
+                //only this method advances the position, so it is still where the read started
+                events = outboxService.getEventsAfter(from, batchSize);
+                List<StreamEvent> streamEvents = events.stream().map(this::toStreamEvent).toList();
+                synchronized (this) {
+                    if (!from.equals(position)) {
+                        return;
+                    }
+                    for (StreamEvent streamEvent : streamEvents) {
+                        subscribers.forEach(subscriber -> subscriber.offer(streamEvent));
+                        position = streamEvent.id();
+                    }
+                }
+            } while (events.size() == batchSize);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read outbox for order event streams: {}", e.getMessage());
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${order.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> subscriber.offer(HEARTBEAT));
+    }
+    
+    private StreamEvent toStreamEvent(OrderEvent event) {
+        String email = null;
+        OrderStatus status = null;
+        try {
+            JsonNode payload = objectMapper.readTree(event.payload());
+            email = payload.path("customerEmail").asText(null);
+            String statusName = payload.path("status").asText(null);
+            status = statusName != null ? OrderStatus.valueOf(statusName) : null;
+        } catch (Exception e) {
+            logger.warn("Unreadable payload on outbox event {}", event.eventId());
+        }
+        return new StreamEvent(event.eventId(), event, email != null ? email.toLowerCase(Locale.ROOT) : null, status);
+    }
+    
+    private void disconnect(Subscriber subscriber, String reason) {
+        if (subscribers.remove(subscriber)) {
+            meterRegistry.counter("order.stream.disconnects", "reason", reason).increment();
+        }
+    }
+    
+    private record StreamEvent(Long id, OrderEvent event, String customerEmail, OrderStatus status) {}
+    
+    private class Subscriber {
+        
+        private final SseEmitter emitter;
+        private final String customerEmail;
+        private final OrderStatus status;
+        private final BlockingQueue<StreamEvent> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        
+        //set while catching up; live events are not queued then, the replay reads them from the outbox instead
+        private volatile Long replayFrom;
+        private long lastSent;
+        
+        Subscriber(SseEmitter emitter, String customerEmail, OrderStatus status) {
+            this.emitter = emitter;
+            this.customerEmail = customerEmail;
+            this.status = status;
+        }
+        
+        boolean matches(StreamEvent event) {
+            return (customerEmail == null || customerEmail.equals(event.customerEmail()))
+                    && (status == null || status == event.status());
+        }
+        
+        void offer(StreamEvent event) {
+            if (replayFrom != null || (event != HEARTBEAT && !matches(event))) {
+                return;
+            }
+            if (event == HEARTBEAT && !queue.isEmpty()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                //a consumer this far behind is cut loose; it can reconnect with Last-Event-ID
+                disconnect(this, "slow-consumer");
+                emitter.completeWithError(new IllegalStateException("Subscriber fell too far behind"));
+                return;
+            }
+            schedule();
+        }
+        
+        void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            try {
+                if (replayFrom != null) {
+                    replay();
+                }
+                StreamEvent event;
+                while ((event = queue.poll()) != null) {
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                disconnect(this, "error");
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            //an event may have arrived after the last poll but before the flag was cleared
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+        
+        //missed events read straight from the outbox on the sender thread, chasing the live position until it is
+        //reached; the switch to live events happens under the lock poll() fans out with, so none is missed
+        private void replay() throws IOException {
+            long after = replayFrom;
+            while (true) {
+                long upTo;
+                synchronized (OrderEventStreamService.this) {
+                    if (position == null || after >= position) {
+                        replayFrom = null;
+                        return;
+                    }
+                    upTo = position;
+                }
+                List<OrderEvent> events = outboxService.getEventsAfter(after, batchSize);
+                //a short batch, or one reaching past upTo, leaves nothing else readable up to upTo
+                boolean more = events.size() == batchSize;
+                long reached = upTo;
+                for (OrderEvent event : events) {
+                    if (event.eventId() > upTo) {
+                        more = false;
+                        break;
+                    }
+                    StreamEvent streamEvent = toStreamEvent(event);
+                    if (matches(streamEvent)) {
+                        send(streamEvent);
+                    }
+                    reached = event.eventId();
+                }
+                after = more ? reached : upTo;
+            }
+        }
+        
+        private void send(StreamEvent event) throws IOException {
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            if (event.id() <= lastSent) {
+                return;
+            }
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(event.id()))
+                    .name(event.event().type().name())
+                    .data(event.event()));
+            lastSent = event.id();
+            meterRegistry.counter("order.stream.events.sent").increment();
+        }
+    }
+}
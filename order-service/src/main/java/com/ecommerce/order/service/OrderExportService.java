@@ -0,0 +1,241 @@
+package com.ecommerce.order.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+//streams orders and their items for a date range straight from a forward-only result set to the response
+@Service
+public class OrderExportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportService.class);
+    
+    public enum Format { CSV, NDJSON }
+    
+    //one row per order item, ordered so each order's items arrive together
+    private static final String EXPORT_QUERY =
+            "SELECT o.id, o.customer_email, o.customer_name, o.status, o.total_amount, o.created_at, " +
+            "oi.product_id, oi.product_name, oi.quantity, oi.unit_price, oi.total_price " +
+            "FROM orders o JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? ORDER BY o.id, oi.id";
+    
+    private static final String CSV_HEADER =
+            "order_id,customer_email,customer_name,status,total_amount,created_at," +
+            "product_id,product_name,quantity,unit_price,total_price\n";
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${order.export.fetch-size:1000}")
+    private int fetchSize;
+    
+    private JdbcTemplate exportTemplate;
+    
+    @PostConstruct
+    void init() {
+        //with useCursorFetch the driver honours the fetch size instead of buffering the whole result
+        exportTemplate = new JdbcTemplate(dataSource);
+        exportTemplate.setFetchSize(fetchSize);
+    }
+    
+    // write every order created in [from, to) to the stream, returning the number of item rows written
+    public long export(LocalDateTime from, LocalDateTime to, Format format, boolean gzip, OutputStream outputStream) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long startNanos = System.nanoTime();
+        OutputStream target = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+        ExportHandler handler = format == Format.CSV ? new CsvHandler(writer) : new NdjsonHandler(writer);
+        
+        //anything that escapes other than a write error, e.g. a failed query, counts as failed
+        String outcome = "failed";
+        try {
+            handler.start();
+            exportTemplate.query(EXPORT_QUERY, handler, Timestamp.valueOf(from), Timestamp.valueOf(to));
+            handler.finish();
+            writer.flush();
+            if (target instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+            outcome = "success";
+        } catch (UncheckedIOException e) {
+            //usually the client went away; the query is abandoned with it
+            outcome = "aborted";
+            throw e.getCause();
+        } catch (IOException e) {
+            outcome = "aborted";
+            throw e;
+        } finally {
+            String formatTag = format.name().toLowerCase();
+            Counter.builder("order.export.rows").tag("format", formatTag).register(meterRegistry).increment(handler.rows);
+            sample.stop(meterRegistry.timer("order.export.duration", "format", formatTag, "outcome", outcome));
+            double seconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+            logger.info("Exported {} order rows ({}) in {} ms, {} rows/s, outcome {}", handler.rows, formatTag,
+                    Math.round(seconds * 1000), seconds > 0 ? Math.round(handler.rows / seconds) : 0, outcome);
+        }
+        return handler.rows;
+    }
+    
+    private abstract static class ExportHandler implements RowCallbackHandler {
+        
+        protected final Writer writer;
+        protected long rows;
+        
+        ExportHandler(Writer writer) {
+            this.writer = writer;
+        }
+        
+        void start() throws IOException {}
+        
+        void finish() throws IOException {}
+        
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                write(rs);
+                rows++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        abstract void write(ResultSet rs) throws SQLException, IOException;
+    }
+    
+    //flat CSV, one line per order item with the order columns repeated
+    private static class CsvHandler extends ExportHandler {
+        
+        CsvHandler(Writer writer) {
+            super(writer);
+        }
+        
+        @Override
+        void start() throws IOException {
+            writer.write(CSV_HEADER);
+        }
+        
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writer.write(csv(rs.getString(2)));
+            writer.write(',');
+            writer.write(csv(rs.getString(3)));
+            writer.write(',');
+            writer.write(rs.getString(4));
+            writer.write(',');
+            writer.write(rs.getBigDecimal(5).toPlainString());
+            writer.write(',');
+            Timestamp createdAt = rs.getTimestamp(6);
+            writer.write(createdAt != null ? createdAt.toLocalDateTime().toString() : "");
+            writer.write(',');
+            writer.write(Long.toString(rs.getLong(7)));
+            writer.write(',');
+            writer.write(csv(rs.getString(8)));
+            writer.write(',');
+            writer.write(Integer.toString(rs.getInt(9)));
+            writer.write(',');
+            writer.write(rs.getBigDecimal(10).toPlainString());
+            writer.write(',');
+            writer.write(rs.getBigDecimal(11).toPlainString());
+            writer.write('\n');
+        }
+        
+        private static String csv(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+    
+    //one JSON order per line, items nested; consecutive rows of the same order are written into one object
+    private class NdjsonHandler extends ExportHandler {
+        
+        private final JsonGenerator generator;
+        private long currentOrderId = -1;
+        
+        NdjsonHandler(Writer writer) throws IOException {
+            super(writer);
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            //lines are separated explicitly, not by Jackson's default root separator
+            this.generator.setRootValueSeparator(null);
+        }
+        
+        @Override
+        void write(ResultSet rs) throws SQLException, IOException {
+            long orderId = rs.getLong(1);
+            if (orderId != currentOrderId) {
+                endOrder();
+                currentOrderId = orderId;
+                generator.writeStartObject();
+                generator.writeNumberField("id", orderId);
+                generator.writeStringField("customerEmail", rs.getString(2));
+                generator.writeStringField("customerName", rs.getString(3));
+                generator.writeStringField("status", rs.getString(4));
+                generator.writeNumberField("totalAmount", rs.getBigDecimal(5));
+                Timestamp createdAt = rs.getTimestamp(6);
+                generator.writeStringField("createdAt", createdAt != null ? createdAt.toLocalDateTime().toString() : null);
+                generator.writeArrayFieldStart("orderItems");
+            }
+            generator.writeStartObject();
+            generator.writeNumberField("productId", rs.getLong(7));
+            generator.writeStringField("productName", rs.getString(8));
+            generator.writeNumberField("quantity", rs.getInt(9));
+            generator.writeNumberField("unitPrice", rs.getBigDecimal(10));
+            generator.writeNumberField("totalPrice", rs.getBigDecimal(11));
+            generator.writeEndObject();
+        }
+        
+        @Override
+        void finish() throws IOException {
+            endOrder();
+            generator.flush();
+        }
+        
+        private void endOrder() throws IOException {
+            if (currentOrderId != -1) {
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
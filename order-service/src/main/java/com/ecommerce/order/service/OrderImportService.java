@@ -0,0 +1,422 @@
+package com.ecommerce.order.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.order.dto.ImportResult;
+import com.ecommerce.order.dto.ImportedOrder;
+import com.ecommerce.order.dto.OrderItemRequest;
+import com.ecommerce.order.dto.ProductDto;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderEventType;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+//imports orders from a streamed NDJSON or CSV body, one chunk at a time so heap use stays flat
+@Service
+public class OrderImportService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderImportService.class);
+    
+    public enum Format { NDJSON, CSV }
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private SalesAggregateService salesAggregateService;
+    
+    @Autowired
+    private CustomerOrderCache customerOrderCache;
+    
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+    
+    @Autowired
+    private ProductLookupService productLookupService;
+    
+    @Autowired
+    private OrderPricer orderPricer;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${order.import.chunk-size:500}")
+    private int chunkSize;
+    
+    @Value("${order.import.max-errors:1000}")
+    private int maxErrors;
+    
+    private final Map<String, ImportProgress> activeImports = new ConcurrentHashMap<>();
+    
+    private Counter rowsCounter;
+    
+    private Counter importedCounter;
+    
+    private Counter failedCounter;
+    
+    @PostConstruct
+    void init() {
+        rowsCounter = Counter.builder("order.import.rows")
+                .description("Lines read by bulk order imports")
+                .register(meterRegistry);
+        importedCounter = Counter.builder("order.import.orders")
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("order.import.orders")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        Gauge.builder("order.import.active", activeImports, Map::size)
+                .description("Bulk order imports currently running")
+                .register(meterRegistry);
+    }
+    
+    // imports that are still running, for progress reporting
+    public Collection<ImportProgress> getActiveImports() {
+        return activeImports.values();
+    }
+    
+    public ImportResult importOrders(InputStream body, Format format) throws IOException {
+        ImportProgress progress = new ImportProgress(UUID.randomUUID().toString(), maxErrors);
+        activeImports.put(progress.getId(), progress);
+        logger.info("Starting {} order import {}", format, progress.getId());
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            OrderSource source = format == Format.CSV
+                    ? new CsvOrderSource(reader, progress)
+                    : new NdjsonOrderSource(reader, progress);
+            
+            List<ParsedOrder> chunk = new ArrayList<>(chunkSize);
+            ParsedOrder parsed;
+            while ((parsed = source.next()) != null) {
+                String error = parsed.error() != null ? parsed.error() : validate(parsed.order());
+                if (error != null) {
+                    fail(progress, parsed.line(), error);
+                    continue;
+                }
+                chunk.add(parsed);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, progress);
+            }
+        } finally {
+            activeImports.remove(progress.getId());
+        }
+        
+        ImportResult result = progress.toResult();
+        logger.info("Finished order import {}: {} imported, {} failed, {} rows/s", result.importId(),
+                result.ordersImported(), result.ordersFailed(), Math.round(result.rowsPerSecond()));
+        return result;
+    }
+    
+    private void writeChunk(List<ParsedOrder> chunk, ImportProgress progress) {
+        //resolve every product referenced by the chunk with batch lookups
+        Set<Long> productIds = chunk.stream()
+                .flatMap(parsed -> parsed.order().getOrderItems().stream())
+                .map(OrderItemRequest::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, ProductDto> products;
+        try {
+            products = productLookupService.getProducts(productIds);
+        } catch (RuntimeException e) {
+            chunk.forEach(parsed -> fail(progress, parsed.line(), "Product lookup failed: " + e.getMessage()));
+            return;
+        }
+        
+        List<ParsedOrder> accepted = new ArrayList<>(chunk.size());
+        List<Order> orders = new ArrayList<>(chunk.size());
+        for (ParsedOrder parsed : chunk) {
+            try {
+                Order order = toOrder(parsed.order());
+                orderPricer.price(order, products);
+                orders.add(order);
+                accepted.add(parsed);
+            } catch (RuntimeException e) {
+                fail(progress, parsed.line(), e.getMessage());
+            }
+        }
+        if (orders.isEmpty()) {
+            return;
+        }
+        
+        //one transaction per chunk; inserts go out as JDBC batches and the persistence context ends with it
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                orderRepository.saveAll(orders);
+                orders.forEach(order -> outboxService.record(order, OrderEventType.ORDER_CREATED));
+                salesAggregateService.recordCreated(orders);
+                orders.stream().map(Order::getCustomerEmail).distinct().forEach(customerOrderCache::invalidate);
+                orders.forEach(order -> orderStatusCounters.recordCreated(order.getStatus()));
+            });
+            progress.imported(orders.size());
+            importedCounter.increment(orders.size());
+        } catch (RuntimeException e) {
+            logger.error("Failed to write import chunk of {} orders", orders.size(), e);
+            accepted.forEach(parsed -> fail(progress, parsed.line(), "Write failed: " + e.getMessage()));
+        }
+    }
+    
+    private Order toOrder(ImportedOrder imported) {
+        Order order = new Order();
+        order.setCustomerEmail(imported.getCustomerEmail());
+        order.setCustomerName(imported.getCustomerName());
+        order.setStatus(imported.getStatus() != null ? imported.getStatus() : OrderStatus.PENDING);
+        order.setCreatedAt(imported.getCreatedAt());
+        //imports record history and reserve nothing, so cancelling one must not give stock back
+        order.setStockReserved(false);
+        
+        List<OrderItem> items = new ArrayList<>();
+        for (OrderItemRequest itemRequest : imported.getOrderItems()) {
+            OrderItem item = new OrderItem();
+            item.setProductId(itemRequest.getProductId());
+            item.setQuantity(itemRequest.getQuantity());
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        return order;
+    }
+    
+    private String validate(ImportedOrder order) {
+        Set<ConstraintViolation<ImportedOrder>> violations = validator.validate(order);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+    
+    private void fail(ImportProgress progress, long line, String error) {
+        progress.failed(line, error);
+        failedCounter.increment();
+    }
+    
+    private record ParsedOrder(long line, ImportedOrder order, String error) {}
+    
+    private interface OrderSource {
+        //next order in the feed, or null at end of input
+        ParsedOrder next() throws IOException;
+    }
+    
+    //one JSON order per line
+    private class NdjsonOrderSource implements OrderSource {
+        
+        private final BufferedReader reader;
+        private final ImportProgress progress;
+        private final ObjectReader orderReader = objectMapper.readerFor(ImportedOrder.class);
+        private long lineNumber;
+        
+        NdjsonOrderSource(BufferedReader reader, ImportProgress progress) {
+            this.reader = reader;
+            this.progress = progress;
+        }
+        
+        @Override
+        public ParsedOrder next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                progress.lineRead();
+                rowsCounter.increment();
+                try {
+                    return new ParsedOrder(lineNumber, orderReader.readValue(line), null);
+                } catch (JsonProcessingException e) {
+                    return new ParsedOrder(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+            return null;
+        }
+    }
+    
+    //one order line per row; consecutive rows sharing an order_ref form one order
+    private class CsvOrderSource implements OrderSource {
+        
+        private final BufferedReader reader;
+        private final ImportProgress progress;
+        private Map<String, Integer> columns;
+        private String[] pendingRow;
+        private long pendingLine;
+        private long lineNumber;
+        
+        CsvOrderSource(BufferedReader reader, ImportProgress progress) {
+            this.reader = reader;
+            this.progress = progress;
+        }
+        
+        @Override
+        public ParsedOrder next() throws IOException {
+            if (columns == null && !readHeader()) {
+                return null;
+            }
+            String[] first = pendingRow != null ? pendingRow : readRow();
+            if (first == null) {
+                return null;
+            }
+            long firstLine = pendingRow != null ? pendingLine : lineNumber;
+            pendingRow = null;
+            
+            String orderRef = column(first, "order_ref");
+            if (orderRef == null || orderRef.isBlank()) {
+                return new ParsedOrder(firstLine, null, "Row has no order_ref");
+            }
+            List<String[]> rows = new ArrayList<>();
+            rows.add(first);
+            String[] row;
+            while ((row = readRow()) != null) {
+                if (!orderRef.equals(column(row, "order_ref"))) {
+                    pendingRow = row;
+                    pendingLine = lineNumber;
+                    break;
+                }
+                rows.add(row);
+            }
+            
+            try {
+                return new ParsedOrder(firstLine, toImportedOrder(rows), null);
+            } catch (RuntimeException e) {
+                return new ParsedOrder(firstLine, null, "Invalid row for order " + orderRef + ": " + e.getMessage());
+            }
+        }
+        
+        private boolean readHeader() throws IOException {
+            String header = reader.readLine();
+            if (header == null) {
+                return false;
+            }
+            lineNumber++;
+            columns = new HashMap<>();
+            String[] names = splitCsv(header);
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String required : List.of("order_ref", "customer_email", "customer_name", "product_id", "quantity")) {
+                if (!columns.containsKey(required)) {
+                    throw new IllegalArgumentException("CSV header is missing column: " + required);
+                }
+            }
+            return true;
+        }
+        
+        private String[] readRow() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.isBlank()) {
+                    progress.lineRead();
+                    rowsCounter.increment();
+                    return splitCsv(line);
+                }
+            }
+            return null;
+        }
+        
+        private ImportedOrder toImportedOrder(List<String[]> rows) {
+            String[] first = rows.get(0);
+            ImportedOrder order = new ImportedOrder();
+            order.setCustomerEmail(column(first, "customer_email"));
+            order.setCustomerName(column(first, "customer_name"));
+            String status = column(first, "status");
+            if (status != null && !status.isBlank()) {
+                order.setStatus(OrderStatus.valueOf(status.trim().toUpperCase(Locale.ROOT)));
+            }
+            String createdAt = column(first, "created_at");
+            if (createdAt != null && !createdAt.isBlank()) {
+                order.setCreatedAt(LocalDateTime.parse(createdAt.trim()));
+            }
+            
+            List<OrderItemRequest> items = new ArrayList<>();
+            for (String[] row : rows) {
+                items.add(new OrderItemRequest(Long.valueOf(column(row, "product_id").trim()),
+                        Integer.valueOf(column(row, "quantity").trim())));
+            }
+            order.setOrderItems(items);
+            return order;
+        }
+        
+        private String column(String[] row, String name) {
+            Integer index = columns.get(name);
+            return index != null && index < row.length ? row[index] : null;
+        }
+    }
+    
+    //split one CSV line, honouring double-quoted fields with "" escapes
+    static String[] splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
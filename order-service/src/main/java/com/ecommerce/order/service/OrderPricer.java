@@ -0,0 +1,37 @@
+package com.ecommerce.order.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.order.dto.ProductDto;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+
+//fills in product names, unit prices and totals for an order from already-resolved products
+@Component
+public class OrderPricer {
+    
+    public void price(Order order, Map<Long, ProductDto> products) {
+        //calculate total amount from order items
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        
+        for (OrderItem item : order.getOrderItems()) {
+            ProductDto product = products.get(item.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Product not found with id: " + item.getProductId());
+            }
+            
+            //set product details in order item
+            item.setProductName(product.getName());
+            item.setUnitPrice(product.getPrice());
+            item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+            item.setOrder(order);
+            
+            totalAmount = totalAmount.add(item.getTotalPrice());
+        }
+        
+        order.setTotalAmount(totalAmount);
+    }
+}
@@ -1,25 +1,52 @@
 package com.ecommerce.order.service;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 
 import com.ecommerce.order.client.ProductServiceClient;
+import com.ecommerce.order.dto.OrderPage;
+import com.ecommerce.order.dto.OrderView;
 import com.ecommerce.order.dto.ProductDto;
+import com.ecommerce.order.dto.StockAdjustment;
 import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderEventType;
 import com.ecommerce.order.entity.OrderItem;
 import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.exception.InsufficientStockException;
+import com.ecommerce.order.exception.InvalidStatusTransitionException;
+import com.ecommerce.order.exception.ProductServiceOverloadedException;
 import com.ecommerce.order.repository.OrderItemRepository;
 import com.ecommerce.order.repository.OrderRepository;
 
+import feign.FeignException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.github.resilience4j.retry.annotation.Retry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 @Service
 @Transactional
@@ -27,77 +54,251 @@ public class OrderService {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
     
+    private static final String STAGE_TIMER = "order.create.stage";
+    
     @Autowired
     private OrderRepository orderRepository;
     
     @Autowired
     private OrderItemRepository orderItemRepository;
     
+    @Autowired
+    private ProductLookupService productLookupService;
+    
     @Autowired
     private ProductServiceClient productServiceClient;
     
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private SalesAggregateService salesAggregateService;
+    
+    @Autowired
+    private CustomerOrderCache customerOrderCache;
+    
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+    
+    @Autowired
+    private OrderWriter orderWriter;
+    
+    @Autowired
+    private OrderPricer orderPricer;
+    
+    @Autowired
+    private ProductSnapshotCache productSnapshotCache;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
     @CircuitBreaker(name = "product-service", fallbackMethod = "createOrderFallback")
     @Retry(name = "product-service")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Order createOrder(Order order) {
         logger.info("Creating order for customer: {}", order.getCustomerEmail());
+        Timer.Sample pricing = Timer.start(meterRegistry);
         
-        //calculate total amount from order items
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        //resolve every product in the cart before opening the transaction
+        List<Long> productIds = order.getOrderItems().stream()
+                .map(OrderItem::getProductId)
+                .toList();
+        Map<Long, ProductDto> products = productLookupService.getProducts(productIds);
         
+        //fail fast on stock we already know is short before reserving anything
         for (OrderItem item : order.getOrderItems()) {
-            //get product information from Product Service
-            ProductDto product = productServiceClient.getProductById(item.getProductId());
-            
-            if (product.getStockQuantity() < item.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for product: " + product.getName());
+            ProductDto product = products.get(item.getProductId());
+            if (product != null && product.getStockQuantity() < item.getQuantity()) {
+                throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
             }
-            
-            //set product details in order item
-            item.setProductName(product.getName());
-            item.setUnitPrice(product.getPrice());
-            item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-            item.setOrder(order);
-            
-            totalAmount = totalAmount.add(item.getTotalPrice());
         }
+        orderPricer.price(order, products);
         
-        order.setTotalAmount(totalAmount);
         order.setStatus(OrderStatus.PENDING);
+        pricing.stop(meterRegistry.timer(STAGE_TIMER, "stage", "pricing"));
         
-        Order savedOrder = orderRepository.save(order);
+        Timer.Sample persistence = Timer.start(meterRegistry);
+        //keep the key across retries and the fallback, so product-service applies a reservation that timed out only once
+        if (order.getReservationId() == null) {
+            order.setReservationId(UUID.randomUUID().toString());
+        }
+        //reserve stock atomically in product service, which rejects the whole order if any line is short
+        List<StockAdjustment> reservation = StockAdjustment.forOrder(order);
+        try {
+            productServiceClient.reserveStock(reservation);
+        } catch (FeignException.Conflict e) {
+            throw new InsufficientStockException("Insufficient stock for one or more products in the order");
+        }
+        
+        Order savedOrder;
+        try {
+            savedOrder = orderWriter.save(order);
+        } catch (RuntimeException e) {
+            releaseStock(reservation);
+            throw e;
+        } finally {
+            persistence.stop(meterRegistry.timer(STAGE_TIMER, "stage", "persistence"));
+        }
         logger.info("Order created successfully with ID: {}", savedOrder.getId());
         
         return savedOrder;
     }
     
-    //fallback method for circuit breaker
+    //fallback method for circuit breaker: during a product-service outage, price from recent snapshots and
+    //take the order without a reservation, which PendingReservationService completes once it is back
     public Order createOrderFallback(Order order, Exception ex) {
+        if (isProductServiceOutage(ex)) {
+            List<Long> productIds = order.getOrderItems().stream()
+                    .map(OrderItem::getProductId)
+                    .toList();
+            Optional<Map<Long, ProductDto>> snapshots = productSnapshotCache.getAll(productIds);
+            if (snapshots.isPresent()) {
+                logger.warn("Product service unavailable ({}), pricing order for {} from product snapshots",
+                        ex.getMessage(), order.getCustomerEmail());
+                orderPricer.price(order, snapshots.get());
+                order.setStatus(OrderStatus.PENDING);
+                order.setStalePricing(true);
+                order.setStockReserved(false);
+                Order savedOrder = orderWriter.save(order);
+                meterRegistry.counter("order.create.stale-pricing").increment();
+                logger.info("Order created from product snapshots with ID: {}", savedOrder.getId());
+                return savedOrder;
+            }
+        }
         logger.error("Product service unavailable, creating fallback response", ex);
         throw new RuntimeException("Product service is currently unavailable. Please try again later.");
     }
     
+    private boolean isProductServiceOutage(Exception ex) {
+        //open circuit, local overload rejections, connection failures (status -1) and server errors; 4xx answers are not outages
+        return ex instanceof CallNotPermittedException
+                || ex instanceof ProductServiceOverloadedException
+                || (ex instanceof FeignException feign && (feign.status() < 0 || feign.status() >= 500))
+                || ex instanceof ResourceAccessException
+                || ex instanceof HttpServerErrorException;
+    }
+    
+    //stock shortages are business errors, not outages, so pass them through unchanged
+    public Order createOrderFallback(Order order, InsufficientStockException ex) {
+        throw ex;
+    }
+    
+    private void releaseStock(List<StockAdjustment> reservation) {
+        try {
+            productServiceClient.releaseStock(reservation);
+        } catch (Exception e) {
+            logger.error("Failed to release reserved stock {}", reservation, e);
+        }
+    }
+    
+    private void releaseStockAfterCommit(List<StockAdjustment> reservation) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseStock(reservation);
+            }
+        });
+    }
+    
     //get all orders
     @Transactional(readOnly = true)
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    public List<OrderView> getAllOrders() {
+        return toViews(orderRepository.findAllWithItems());
     }
     
     //get order by ID
     @Transactional(readOnly = true)
-    public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+    public Optional<OrderView> getOrderById(Long id) {
+        return orderRepository.findWithItemsById(id).map(OrderView::from);
     }
     
-    //get orders by customer email
-    @Transactional(readOnly = true)
-    public List<Order> getOrdersByCustomerEmail(String email) {
-        return orderRepository.findByCustomerEmail(email);
+    //get orders by customer email; no transaction up front so cache hits never borrow a connection
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<OrderView> getOrdersByCustomerEmail(String email) {
+        return customerOrderCache.get(email, () -> toViews(orderRepository.findWithItemsByCustomerEmail(email)));
     }
     
     // get orders by status
     @Transactional(readOnly = true)
-    public List<Order> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status);
+    public List<OrderView> getOrdersByStatus(OrderStatus status) {
+        return toViews(orderRepository.findWithItemsByStatus(status));
+    }
+    
+    // get one page of orders in creation order after the given cursor, optionally filtered by status
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersPage(OrderStatus status, String cursor, int size) {
+        //fetch one extra row to find out whether another page follows
+        Limit limit = Limit.of(size + 1);
+        List<Order> orders;
+        if (cursor == null) {
+            orders = status == null
+                    ? orderRepository.findFirstPage(limit)
+                    : orderRepository.findFirstPageByStatus(status, limit);
+        } else {
+            Cursor position = decodeCursor(cursor);
+            orders = status == null
+                    ? orderRepository.findPageAfter(position.createdAt(), position.id(), limit)
+                    : orderRepository.findPageByStatusAfter(status, position.createdAt(), position.id(), limit);
+        }
+        
+        String nextCursor = null;
+        if (orders.size() > size) {
+            orders = orders.subList(0, size);
+            nextCursor = encodeCursor(orders.get(size - 1));
+        }
+        
+        //a fetch join cannot be limited in SQL, so load the page's items with a second query instead
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        Map<Long, List<OrderItem>> itemsByOrder = orderIds.isEmpty()
+                ? Map.of()
+                : orderItemRepository.findByOrderIdIn(orderIds).stream()
+                        .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+        
+        List<OrderView> views = orders.stream()
+                .map(order -> OrderView.from(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
+                .toList();
+        return new OrderPage(views, nextCursor);
+    }
+    
+    static String encodeCursor(Order last) {
+        String raw = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            //NumberFormatException is an IllegalArgumentException too
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    record Cursor(LocalDateTime createdAt, Long id) {}
+    
+    // stream orders with their items, detaching each one so the persistence context stays small
+    @Transactional(readOnly = true)
+    public void streamOrders(OrderStatus status, Consumer<OrderView> consumer) {
+        try (Stream<Order> orders = status == null
+                ? orderRepository.streamAll()
+                : orderRepository.streamByStatus(status)) {
+            orders.forEach(order -> {
+                consumer.accept(OrderView.from(order));
+                entityManager.detach(order);
+            });
+        }
+    }
+    
+    private List<OrderView> toViews(List<Order> orders) {
+        return orders.stream().map(OrderView::from).toList();
     }
     
     // update order status
@@ -105,17 +306,39 @@ public class OrderService {
         Optional<Order> orderOpt = orderRepository.findById(orderId);
         if (orderOpt.isPresent()) {
             Order order = orderOpt.get();
+            OrderStatus previousStatus = order.getStatus();
+            if (!previousStatus.canTransitionTo(newStatus)) {
+                throw new InvalidStatusTransitionException(orderId, previousStatus, newStatus);
+            }
             order.setStatus(newStatus);
-            Order updatedOrder = orderRepository.save(order);
+            //flush first so a concurrent update fails on the version check before stock is touched
+            Order updatedOrder = orderRepository.saveAndFlush(order);
+            if (newStatus == OrderStatus.CANCELLED && updatedOrder.mayHoldStock()) {
+                //return the reserved stock to product service once the cancellation has committed
+                releaseStockAfterCommit(StockAdjustment.forOrder(updatedOrder));
+            }
+            outboxService.record(updatedOrder, OrderEventType.ORDER_STATUS_CHANGED);
+            salesAggregateService.recordStatusChange(updatedOrder, previousStatus);
+            customerOrderCache.invalidate(updatedOrder.getCustomerEmail());
+            orderStatusCounters.recordTransition(previousStatus, newStatus);
             logger.info("Order {} status updated to {}", orderId, newStatus);
             return updatedOrder;
         }
         throw new RuntimeException("Order not found with id: " + orderId);
     }
     
-    // delete order
+    // delete order, giving back any stock it still holds once the delete commits
     public void deleteOrder(Long id) {
-        orderRepository.deleteById(id);
+        orderRepository.findWithItemsById(id).ifPresent(order -> {
+            if (order.mayHoldStock() && order.getStatus() != OrderStatus.CANCELLED) {
+                releaseStockAfterCommit(StockAdjustment.forOrder(order));
+            }
+            outboxService.record(order, OrderEventType.ORDER_DELETED);
+            salesAggregateService.recordDeleted(order);
+            customerOrderCache.invalidate(order.getCustomerEmail());
+            orderStatusCounters.recordDeleted(order.getStatus());
+            orderRepository.delete(order);
+        });
     }
     
     // get order items for an order
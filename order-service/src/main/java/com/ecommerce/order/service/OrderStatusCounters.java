@@ -0,0 +1,145 @@
+package com.ecommerce.order.service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.repository.OrderRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+//order counts per status kept in striped counters, adjusted after each committed write and periodically
+//reconciled against the database, which also folds in changes made by other instances
+@Component
+public class OrderStatusCounters {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusCounters.class);
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    //a reconcile that keeps racing with writes is applied anyway after this many attempts
+    @Value("${order.status-counters.max-skipped-reconciles:5}")
+    private int maxSkippedReconciles;
+    
+    private final Map<OrderStatus, LongAdder> counters = new EnumMap<>(OrderStatus.class);
+    
+    private volatile LocalDateTime reconciledAt;
+    
+    private int skippedReconciles;
+    
+    @PostConstruct
+    void init() {
+        for (OrderStatus status : OrderStatus.values()) {
+            LongAdder counter = new LongAdder();
+            counters.put(status, counter);
+            Gauge.builder("order.status.count", counter, LongAdder::sum)
+                    .tag("status", status.name())
+                    .description("Orders currently in each status")
+                    .register(meterRegistry);
+        }
+    }
+    
+    public void recordCreated(OrderStatus status) {
+        afterCommit(() -> counters.get(status).increment());
+    }
+    
+    public void recordTransition(OrderStatus from, OrderStatus to) {
+        if (from != to) {
+            afterCommit(() -> {
+                counters.get(from).decrement();
+                counters.get(to).increment();
+            });
+        }
+    }
+    
+    public void recordDeleted(OrderStatus status) {
+        afterCommit(() -> counters.get(status).decrement());
+    }
+    
+    // current counts; reads are O(1) per status and never touch the database once reconciled
+    public Map<String, Object> getSummary() {
+        if (reconciledAt == null) {
+            reconcile();
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        long total = 0;
+        for (OrderStatus status : OrderStatus.values()) {
+            long count = counters.get(status).sum();
+            counts.put(status.name(), count);
+            total += count;
+        }
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("counts", counts);
+        summary.put("total", total);
+        summary.put("reconciledAt", reconciledAt != null ? reconciledAt.toString() : null);
+        summary.put("timestamp", LocalDateTime.now().toString());
+        return summary;
+    }
+    
+    // correct the counters from a GROUP BY, skipping rounds where writes landed while the query ran
+    @Scheduled(fixedDelayString = "${order.status-counters.reconcile-interval-ms:30000}")
+    public synchronized void reconcile() {
+        Map<OrderStatus, Long> before = snapshot();
+        Map<OrderStatus, Long> actual = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : orderRepository.countByStatus()) {
+            actual.put((OrderStatus) row[0], ((Number) row[1]).longValue());
+        }
+        Map<OrderStatus, Long> after = snapshot();
+        
+        if (!before.equals(after) && reconciledAt != null && ++skippedReconciles < maxSkippedReconciles) {
+            logger.debug("Skipping status counter reconcile, counters moved during the query");
+            return;
+        }
+        skippedReconciles = 0;
+        
+        for (OrderStatus status : OrderStatus.values()) {
+            long drift = actual.getOrDefault(status, 0L) - after.get(status);
+            if (drift != 0) {
+                counters.get(status).add(drift);
+                if (reconciledAt != null) {
+                    logger.info("Status counter for {} corrected by {}", status, drift);
+                }
+            }
+        }
+        reconciledAt = LocalDateTime.now();
+    }
+    
+    private Map<OrderStatus, Long> snapshot() {
+        Map<OrderStatus, Long> values = new EnumMap<>(OrderStatus.class);
+        counters.forEach((status, counter) -> values.put(status, counter.sum()));
+        return values;
+    }
+    
+    //rolled-back writes must not move the counters
+    private void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.ecommerce.order.service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderSubmission;
+import com.ecommerce.order.entity.SubmissionStatus;
+import com.ecommerce.order.exception.SubmissionQueueFullException;
+import com.ecommerce.order.repository.OrderSubmissionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+//accepts orders onto a bounded queue and creates them on a worker pool, off the request thread
+@Service
+public class OrderSubmissionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderSubmissionService.class);
+    
+    private static final String STALE_ERROR = "Submission was lost before it completed, e.g. because the order service " +
+            "restarted. Please resubmit the order.";
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private OrderSubmissionRepository orderSubmissionRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${order.submission.queue-depth:1000}")
+    private int queueDepth;
+    
+    @Value("${order.submission.workers:16}")
+    private int workers;
+    
+    @Value("${order.submission.retention-hours:24}")
+    private long retentionHours;
+    
+    //far longer than a full queue takes to drain, so only submissions whose instance went away qualify
+    @Value("${order.submission.stale-after-minutes:10}")
+    private long staleAfterMinutes;
+    
+    private ThreadPoolExecutor executor;
+    
+    private Timer queueWaitTimer;
+    
+    private Timer processingTimer;
+    
+    private Counter rejectedCounter;
+    
+    private Counter staleCounter;
+    
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        //rejecting instead of blocking is what turns a full queue into a 429 for the caller
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-submission-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        
+        queueWaitTimer = Timer.builder("order.submission.queue.wait")
+                .description("Time an accepted order waits before a worker picks it up")
+                .register(meterRegistry);
+        processingTimer = Timer.builder("order.submission.processing")
+                .description("Time a worker spends pricing and persisting an order")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("order.submission.rejected")
+                .description("Orders rejected because the submission queue was full")
+                .register(meterRegistry);
+        staleCounter = Counter.builder("order.submission.stale")
+                .description("Submissions failed because they stopped making progress")
+                .register(meterRegistry);
+        Gauge.builder("order.submission.queue.depth", executor, e -> e.getQueue().size())
+                .description("Orders waiting in the submission queue")
+                .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+    
+    // queue an order for creation and return the submission that tracks it
+    public OrderSubmission submit(Order order) {
+        OrderSubmission submission = orderSubmissionRepository.save(
+                new OrderSubmission(UUID.randomUUID().toString(), order.getCustomerEmail()));
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> process(submission.getId(), order, enqueuedAt));
+        } catch (RejectedExecutionException e) {
+            orderSubmissionRepository.deleteById(submission.getId());
+            rejectedCounter.increment();
+            throw new SubmissionQueueFullException("Order submission queue is full. Please retry shortly.");
+        }
+        logger.info("Order submission {} queued for customer: {}", submission.getId(), order.getCustomerEmail());
+        return submission;
+    }
+    
+    // get a submission by ID
+    public Optional<OrderSubmission> getSubmission(String id) {
+        return orderSubmissionRepository.findById(id);
+    }
+    
+    // drop submissions past the retention window
+    @Scheduled(fixedDelayString = "${order.submission.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime olderThan = LocalDateTime.now().minusHours(retentionHours);
+        transactionTemplate.execute(status -> orderSubmissionRepository.deleteOlderThan(olderThan));
+    }
+    
+    // fail submissions stuck in QUEUED or PROCESSING; the order itself only lived in the queue of the instance that
+    // accepted it, so once that instance is gone the submission cannot be re-run and the client has to resubmit
+    @Scheduled(initialDelayString = "${order.submission.stale-sweep-initial-delay-ms:60000}",
+               fixedDelayString = "${order.submission.stale-sweep-interval-ms:60000}")
+    public void failStale() {
+        LocalDateTime olderThan = LocalDateTime.now().minusMinutes(staleAfterMinutes);
+        Integer failed = transactionTemplate.execute(status -> orderSubmissionRepository.failStuck(
+                EnumSet.of(SubmissionStatus.QUEUED, SubmissionStatus.PROCESSING), olderThan,
+                SubmissionStatus.FAILED, STALE_ERROR));
+        if (failed != null && failed > 0) {
+            staleCounter.increment(failed);
+            logger.warn("Failed {} order submissions that stopped making progress", failed);
+        }
+    }
+    
+    private void process(String submissionId, Order order, long enqueuedAt) {
+        queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+        //the stale sweep may already have failed this one and told the client to resubmit
+        Integer claimed = transactionTemplate.execute(tx -> orderSubmissionRepository.updateStatusIf(
+                submissionId, SubmissionStatus.QUEUED, SubmissionStatus.PROCESSING));
+        if (claimed == null || claimed == 0) {
+            logger.warn("Order submission {} is no longer queued, skipping it", submissionId);
+            return;
+        }
+        
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Order savedOrder = orderService.createOrder(order);
+            updateStatus(submissionId, SubmissionStatus.COMPLETED, savedOrder.getId(), null);
+        } catch (Exception e) {
+            logger.error("Order submission {} failed", submissionId, e);
+            updateStatus(submissionId, SubmissionStatus.FAILED, null, truncate(e.getMessage()));
+        } finally {
+            sample.stop(processingTimer);
+        }
+    }
+    
+    private void updateStatus(String submissionId, SubmissionStatus status, Long orderId, String error) {
+        transactionTemplate.execute(tx -> orderSubmissionRepository.updateStatus(submissionId, status, orderId, error));
+    }
+    
+    private String truncate(String message) {
+        if (message == null || message.length() <= 500) {
+            return message;
+        }
+        return message.substring(0, 500);
+    }
+}
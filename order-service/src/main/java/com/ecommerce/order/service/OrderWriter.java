@@ -0,0 +1,247 @@
+package com.ecommerce.order.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderEventType;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.repository.OrderRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+//persists new orders with their outbox event and sales aggregates; with group commit enabled, orders arriving close together share one
+//transaction and their inserts go out as JDBC batches
+@Service
+public class OrderWriter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderWriter.class);
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private SalesAggregateService salesAggregateService;
+    
+    @Autowired
+    private CustomerOrderCache customerOrderCache;
+    
+    @Autowired
+    private OrderStatusCounters orderStatusCounters;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${order.group-commit.enabled:true}")
+    private boolean groupCommitEnabled;
+    
+    @Value("${order.group-commit.max-batch-size:64}")
+    private int maxBatchSize;
+    
+    @Value("${order.group-commit.max-wait-ms:2}")
+    private long maxWaitMillis;
+    
+    @Value("${order.group-commit.write-timeout-ms:10000}")
+    private long writeTimeoutMillis;
+    
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    
+    private DistributionSummary batchSizeSummary;
+    
+    private Thread writerThread;
+    
+    private volatile boolean running = true;
+    
+    @PostConstruct
+    void start() {
+        batchSizeSummary = DistributionSummary.builder("order.group-commit.batch.size")
+                .description("Orders written per group-commit transaction")
+                .register(meterRegistry);
+        if (groupCommitEnabled) {
+            writerThread = new Thread(this::runWriter, "order-group-commit");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+    
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            writerThread.interrupt();
+            writerThread.join(writeTimeoutMillis);
+        }
+    }
+    
+    // save a new order with its items and creation event, returning once it is committed
+    public Order save(Order order) {
+        if (!groupCommitEnabled) {
+            return transactionTemplate.execute(status -> persist(order));
+        }
+        
+        PendingWrite write = new PendingWrite(order);
+        queue.add(write);
+        try {
+            return write.future().get(writeTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw failure(e.getCause());
+        } catch (TimeoutException e) {
+            if (withdraw(write)) {
+                throw new IllegalStateException("Timed out waiting for order to be written");
+            }
+            //already part of a transaction, so the caller must learn whether it committed before releasing any stock
+            logger.warn("Order write exceeded {} ms while in progress, waiting for its outcome", writeTimeoutMillis);
+            return outcome(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (withdraw(write)) {
+                throw new IllegalStateException("Interrupted waiting for order to be written");
+            }
+            return outcome(write);
+        }
+    }
+    
+    //take a write back before the writer picks it up; false once it is being written
+    private boolean withdraw(PendingWrite write) {
+        if (!write.claim()) {
+            return false;
+        }
+        queue.remove(write);
+        return true;
+    }
+    
+    private Order outcome(PendingWrite write) {
+        try {
+            return write.future().join();
+        } catch (CompletionException e) {
+            throw failure(e.getCause());
+        }
+    }
+    
+    private RuntimeException failure(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new IllegalStateException(cause);
+    }
+    
+    private void runWriter() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                //block for the first order, then gather whatever else arrives within the window;
+                //writes their callers already gave up on are skipped
+                PendingWrite first = queue.take();
+                if (!first.claim()) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next.claim()) {
+                        batch.add(next);
+                    }
+                }
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in group-commit writer", e);
+            } finally {
+                batch.clear();
+            }
+        }
+        
+        //fail anything still queued so callers are not left waiting on shutdown
+        PendingWrite pending;
+        while ((pending = queue.poll()) != null) {
+            if (pending.claim()) {
+                pending.future().completeExceptionally(new IllegalStateException("Order writer is shutting down"));
+            }
+        }
+    }
+    
+    private void writeBatch(List<PendingWrite> batch) {
+        batchSizeSummary.record(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(write -> persist(write.order())));
+            batch.forEach(write -> write.future().complete(write.order()));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future().completeExceptionally(e);
+                return;
+            }
+            //one bad order must not fail its neighbours, so retry each in its own transaction
+            logger.warn("Group commit of {} orders failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (PendingWrite write : batch) {
+                resetIds(write.order());
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(write.order()));
+                    write.future().complete(write.order());
+                } catch (RuntimeException single) {
+                    write.future().completeExceptionally(single);
+                }
+            }
+        }
+    }
+    
+    private Order persist(Order order) {
+        Order saved = orderRepository.save(order);
+        outboxService.record(saved, OrderEventType.ORDER_CREATED);
+        salesAggregateService.recordCreated(List.of(saved));
+        customerOrderCache.invalidate(saved.getCustomerEmail());
+        orderStatusCounters.recordCreated(saved.getStatus());
+        return saved;
+    }
+    
+    //ids and versions assigned inside a rolled-back transaction are discarded before the order is retried
+    private void resetIds(Order order) {
+        order.setId(null);
+        order.setVersion(null);
+        for (OrderItem item : order.getOrderItems()) {
+            item.setId(null);
+        }
+    }
+    
+    private record PendingWrite(Order order, CompletableFuture<Order> future, AtomicBoolean claimed) {
+        
+        PendingWrite(Order order) {
+            this(order, new CompletableFuture<>(), new AtomicBoolean());
+        }
+        
+        //the writer and a caller giving up race for the write; only the winner decides its fate
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.order.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.order.dto.OrderEvent;
+import com.ecommerce.order.entity.OutboxEvent;
+import com.ecommerce.order.entity.OutboxOffset;
+import com.ecommerce.order.event.OrderEventSink;
+import com.ecommerce.order.repository.OutboxEventRepository;
+import com.ecommerce.order.repository.OutboxOffsetRepository;
+
+//drains the outbox in batches and hands events to every sink, tracking a delivery offset per sink
+@Component
+public class OutboxRelay {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    
+    @Autowired
+    private List<OrderEventSink> sinks;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private OutboxOffsetRepository outboxOffsetRepository;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${order.outbox.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${order.outbox.retention-hours:168}")
+    private long retentionHours;
+    
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:500}")
+    public void relay() {
+        for (OrderEventSink sink : sinks) {
+            try {
+                int delivered;
+                do {
+                    delivered = transactionTemplate.execute(status -> deliverBatch(sink));
+                } while (delivered == batchSize);
+            } catch (Exception e) {
+                //the offset was not advanced, so the same batch is retried on the next run
+                logger.warn("Failed to deliver outbox events to sink {}: {}", sink.getName(), e.getMessage());
+            }
+        }
+    }
+    
+    // remove events that every sink has delivered once they are past the retention window
+    @Scheduled(fixedDelayString = "${order.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        List<OutboxOffset> offsets = outboxOffsetRepository.findAllById(
+                sinks.stream().map(OrderEventSink::getName).toList());
+        if (offsets.size() < sinks.size()) {
+            return;
+        }
+        long delivered = offsets.stream().mapToLong(OutboxOffset::getLastEventId).min().orElse(0L);
+        LocalDateTime olderThan = LocalDateTime.now().minusHours(retentionHours);
+        Integer purged = transactionTemplate.execute(
+                status -> outboxEventRepository.deleteDelivered(delivered, olderThan));
+        logger.info("Purged {} delivered outbox events", purged);
+    }
+    
+    private int deliverBatch(OrderEventSink sink) {
+        OutboxOffset offset = outboxOffsetRepository.findForUpdate(sink.getName())
+                .orElseGet(() -> outboxOffsetRepository.saveAndFlush(new OutboxOffset(sink.getName(), 0L)));
+        
+        List<OutboxEvent> events = outboxService.getCommittedBatchAfter(offset.getLastEventId(), batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            sink.publish(events.stream().map(OrderEvent::from).toList());
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        offset.setLastEventId(events.get(events.size() - 1).getId());
+        return events.size();
+    }
+}
@@ -0,0 +1,134 @@
+package com.ecommerce.order.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecommerce.order.dto.OrderEvent;
+import com.ecommerce.order.dto.OrderView;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderEventType;
+import com.ecommerce.order.entity.OutboxEvent;
+import com.ecommerce.order.entity.OutboxOffset;
+import com.ecommerce.order.repository.OutboxEventRepository;
+import com.ecommerce.order.repository.OutboxOffsetRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Service
+public class OutboxService {
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private OutboxOffsetRepository outboxOffsetRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    //longest a transaction may take between writing an event and committing it; an id that has been missing
+    //for this long since a reader on this instance first saw the gap is taken to be a rollback and skipped
+    @Value("${order.outbox.gap-timeout-ms:30000}")
+    private long gapTimeoutMillis;
+    
+    //a gap below an event created this long ago is final however recently it was first seen, so a reader starting
+    //far back, e.g. a stream resuming from an old id, does not wait out every historic rollback
+    @Value("${order.outbox.gap-horizon-ms:600000}")
+    private long gapHorizonMillis;
+    
+    //System.nanoTime at which each missing id was first seen
+    private final Map<Long, Long> gapsFirstSeen = new ConcurrentHashMap<>();
+    
+    // write an order event as part of the caller's transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Order order, OrderEventType type) {
+        record(OrderView.from(order), type);
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(OrderView order, OrderEventType type) {
+        try {
+            String payload = objectMapper.writeValueAsString(order);
+            outboxEventRepository.save(new OutboxEvent(order.id(), type, payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order " + order.id(), e);
+        }
+    }
+    
+    // read events after an offset so consumers can resume from the last event they processed
+    @Transactional(readOnly = true)
+    public List<OrderEvent> getEventsAfter(Long afterId, int limit) {
+        return getCommittedBatchAfter(afterId, limit).stream()
+                .map(OrderEvent::from)
+                .toList();
+    }
+    
+    // events after an offset in id order, stopping before the first missing id that may still commit.
+    // Ids are taken at insert, so a slow transaction can commit below ids that are already visible;
+    // reading past its gap would skip its event for good.
+    public List<OutboxEvent> getCommittedBatchAfter(Long afterId, int limit) {
+        List<OutboxEvent> events = outboxEventRepository.findBatchAfter(afterId, Limit.of(limit));
+        long now = System.nanoTime();
+        LocalDateTime horizon = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(gapHorizonMillis));
+        forgetGaps(now);
+        long expected = afterId + 1;
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            if (event.getId() != expected && !isGapClosed(expected, event, now, horizon)) {
+                return events.subList(0, i);
+            }
+            if (!gapsFirstSeen.isEmpty()) {
+                //committed late after all
+                gapsFirstSeen.remove(event.getId());
+            }
+            expected = event.getId() + 1;
+        }
+        return events;
+    }
+    
+    //the ids in [from, next) are final once each has been missing for the timeout. That is timed from when the gap
+    //was first seen, not from the next event's createdAt: an event can become visible long after it was created,
+    //while the transaction holding the missing id is still running
+    private boolean isGapClosed(long from, OutboxEvent next, long now, LocalDateTime horizon) {
+        if (next.getCreatedAt().isBefore(horizon)) {
+            return true;
+        }
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+        boolean closed = true;
+        for (long id = from; id < next.getId(); id++) {
+            long firstSeen = gapsFirstSeen.computeIfAbsent(id, missing -> now);
+            closed &= now - firstSeen >= timeoutNanos;
+        }
+        return closed;
+    }
+    
+    //a gap first seen before the horizon lies below events older than the horizon, so it is final anyway
+    private void forgetGaps(long now) {
+        if (!gapsFirstSeen.isEmpty()) {
+            long horizonNanos = TimeUnit.MILLISECONDS.toNanos(gapHorizonMillis);
+            gapsFirstSeen.values().removeIf(firstSeen -> now - firstSeen > horizonNanos);
+        }
+    }
+    
+    // id of the newest event, for consumers that only care about events from now on
+    @Transactional(readOnly = true)
+    public Long getLatestEventId() {
+        return outboxEventRepository.findMaxId();
+    }
+    
+    // current delivery offsets of every sink
+    @Transactional(readOnly = true)
+    public List<OutboxOffset> getOffsets() {
+        return outboxOffsetRepository.findAll();
+    }
+}
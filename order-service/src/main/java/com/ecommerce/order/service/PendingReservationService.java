@@ -0,0 +1,91 @@
+package com.ecommerce.order.service;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.order.client.ProductServiceClient;
+import com.ecommerce.order.dto.StockAdjustment;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.repository.OrderRepository;
+
+import feign.FeignException;
+
+//reserves stock for orders accepted from product snapshots once product-service answers again;
+//orders whose stock has run out in the meantime are cancelled
+@Service
+public class PendingReservationService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PendingReservationService.class);
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private ProductServiceClient productServiceClient;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${order.product-snapshot.reservation-batch-size:100}")
+    private int batchSize;
+    
+    @Scheduled(fixedDelayString = "${order.product-snapshot.reservation-retry-ms:10000}")
+    public void reservePending() {
+        List<Long> ids = orderRepository.findIdsAwaitingReservation(
+                OrderStatus.allowedPredecessors(OrderStatus.CANCELLED), Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return;
+        }
+        
+        int reserved = 0;
+        for (Order order : orderRepository.findWithItemsByIdIn(ids)) {
+            if (order.getReservationId() == null) {
+                String reservationId = UUID.randomUUID().toString();
+                transactionTemplate.executeWithoutResult(status -> orderRepository.assignReservationId(order.getId(), reservationId));
+                order.setReservationId(reservationId);
+            }
+            List<StockAdjustment> reservation = StockAdjustment.forOrder(order);
+            try {
+                productServiceClient.reserveStock(reservation);
+            } catch (FeignException.Conflict e) {
+                logger.warn("Stock ran out for order {} taken during the outage, cancelling it", order.getId());
+                cancel(order);
+                continue;
+            } catch (RuntimeException e) {
+                //still unreachable; try again next round
+                logger.info("Product service still unavailable, {} orders await stock reservation", ids.size() - reserved);
+                return;
+            }
+            
+            Integer marked = transactionTemplate.execute(status -> orderRepository.markStockReserved(order.getId()));
+            if (marked == null || marked == 0) {
+                //cancelled while we were reserving; hand the stock straight back
+                productServiceClient.releaseStock(reservation);
+            } else {
+                reserved++;
+            }
+        }
+        logger.info("Reserved stock for {} orders taken during a product-service outage", reserved);
+    }
+    
+    private void cancel(Order order) {
+        try {
+            orderService.updateOrderStatus(order.getId(), OrderStatus.CANCELLED);
+        } catch (RuntimeException e) {
+            logger.error("Failed to cancel order {} after its reservation was rejected", order.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ecommerce.order.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.ecommerce.order.client.ProductServiceClient;
+import com.ecommerce.order.dto.ProductDto;
+
+@Service
+public class ProductLookupService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductLookupService.class);
+    
+    @Autowired
+    private ProductServiceClient productServiceClient;
+    
+    @Autowired
+    private ExecutorService productLookupExecutor;
+    
+    @Autowired
+    private ProductSnapshotCache productSnapshotCache;
+    
+    @Value("${order.product-lookup.batch-size:50}")
+    private int batchSize;
+    
+    //resolve products by ID with one batch call, or parallel batch calls for very large carts
+    public Map<Long, ProductDto> getProducts(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        Map<Long, ProductDto> products = new HashMap<>();
+        if (ids.isEmpty()) {
+            return products;
+        }
+        
+        if (ids.size() <= batchSize) {
+            addAll(products, productServiceClient.getProductsByIds(ids));
+            return products;
+        }
+        
+        logger.info("Resolving {} products in parallel batches of {}", ids.size(), batchSize);
+        List<CompletableFuture<List<ProductDto>>> futures = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            futures.add(CompletableFuture.supplyAsync(
+                () -> productServiceClient.getProductsByIds(chunk), productLookupExecutor));
+        }
+        
+        try {
+            for (CompletableFuture<List<ProductDto>> future : futures) {
+                addAll(products, future.join());
+            }
+        } catch (CompletionException e) {
+            //surface the original client exception so retry and circuit breaker can classify it
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return products;
+    }
+    
+    private void addAll(Map<Long, ProductDto> products, List<ProductDto> batch) {
+        if (batch != null) {
+            productSnapshotCache.record(batch);
+            for (ProductDto product : batch) {
+                products.put(product.getId(), product);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.ecommerce.order.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.order.dto.ProductDto;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+//last known good copy of every product seen from product-service, for pricing while it is unreachable
+@Component
+public class ProductSnapshotCache {
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${order.product-snapshot.max-size:100000}")
+    private int maxSize;
+    
+    @Value("${order.product-snapshot.max-staleness:10m}")
+    private Duration maxStaleness;
+    
+    //least recently used first; guarded by its own monitor
+    private LinkedHashMap<Long, Snapshot> snapshots;
+    
+    private Timer servedAge;
+    
+    @PostConstruct
+    void init() {
+        snapshots = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Snapshot> eldest) {
+                return size() > maxSize;
+            }
+        };
+        servedAge = Timer.builder("order.product-snapshot.served.age")
+                .description("Age of product snapshots used to price orders")
+                .register(meterRegistry);
+        Gauge.builder("order.product-snapshot.size", this, cache -> cache.size()).register(meterRegistry);
+    }
+    
+    // remember products from a successful product-service response
+    public void record(Collection<ProductDto> products) {
+        long now = System.nanoTime();
+        synchronized (snapshots) {
+            for (ProductDto product : products) {
+                if (product != null && product.getId() != null) {
+                    snapshots.put(product.getId(), new Snapshot(product, now));
+                }
+            }
+        }
+    }
+    
+    // snapshots of every requested product, or empty if any is missing or older than the staleness bound
+    public Optional<Map<Long, ProductDto>> getAll(Collection<Long> productIds) {
+        long now = System.nanoTime();
+        long maxAgeNanos = maxStaleness.toNanos();
+        Map<Long, ProductDto> products = new HashMap<>();
+        long oldest = 0;
+        synchronized (snapshots) {
+            for (Long id : productIds) {
+                Snapshot snapshot = snapshots.get(id);
+                if (snapshot == null || now - snapshot.fetchedAtNanos() > maxAgeNanos) {
+                    return Optional.empty();
+                }
+                products.put(id, snapshot.product());
+                oldest = Math.max(oldest, now - snapshot.fetchedAtNanos());
+            }
+        }
+        servedAge.record(oldest, TimeUnit.NANOSECONDS);
+        return Optional.of(products);
+    }
+    
+    public int size() {
+        synchronized (snapshots) {
+            return snapshots.size();
+        }
+    }
+    
+    private record Snapshot(ProductDto product, long fetchedAtNanos) {}
+}
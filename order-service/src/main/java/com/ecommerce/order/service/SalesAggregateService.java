@@ -0,0 +1,202 @@
+package com.ecommerce.order.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.entity.ProductSales;
+import com.ecommerce.order.entity.ProductSalesDaily;
+import com.ecommerce.order.repository.ProductSalesDailyRepository;
+import com.ecommerce.order.repository.ProductSalesRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+//maintains the product_sales and product_sales_daily aggregates incrementally; cancelled orders do not count
+@Service
+public class SalesAggregateService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SalesAggregateService.class);
+    
+    private static final String UPSERT_TOTALS =
+            "INSERT INTO product_sales (product_id, units_sold, revenue, order_count, updated_at) VALUES (?, ?, ?, ?, ?) AS incoming " +
+            "ON DUPLICATE KEY UPDATE units_sold = units_sold + incoming.units_sold, revenue = revenue + incoming.revenue, " +
+            "order_count = order_count + incoming.order_count, updated_at = incoming.updated_at";
+    
+    private static final String UPSERT_DAILY =
+            "INSERT INTO product_sales_daily (product_id, sales_date, units_sold, revenue, order_count) VALUES (?, ?, ?, ?, ?) AS incoming " +
+            "ON DUPLICATE KEY UPDATE units_sold = units_sold + incoming.units_sold, revenue = revenue + incoming.revenue, " +
+            "order_count = order_count + incoming.order_count";
+    
+    private static final String REBUILD_TOTALS =
+            "INSERT INTO product_sales (product_id, units_sold, revenue, order_count, updated_at) " +
+            "SELECT oi.product_id, SUM(oi.quantity), SUM(oi.total_price), COUNT(DISTINCT oi.order_id), NOW() " +
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id WHERE o.status <> 'CANCELLED' " +
+            "GROUP BY oi.product_id";
+    
+    private static final String REBUILD_DAILY =
+            "INSERT INTO product_sales_daily (product_id, sales_date, units_sold, revenue, order_count) " +
+            "SELECT oi.product_id, DATE(o.created_at), SUM(oi.quantity), SUM(oi.total_price), COUNT(DISTINCT oi.order_id) " +
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id WHERE o.status <> 'CANCELLED' " +
+            "GROUP BY oi.product_id, DATE(o.created_at)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ProductSalesRepository productSalesRepository;
+    
+    @Autowired
+    private ProductSalesDailyRepository productSalesDailyRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // add newly written orders to the aggregates, in the transaction that inserts them
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<Order> orders) {
+        List<Order> counted = orders.stream().filter(order -> counts(order.getStatus())).toList();
+        apply(counted, 1);
+    }
+    
+    // move an order in or out of the aggregates when it is cancelled or un-cancelled
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChange(Order order, OrderStatus previousStatus) {
+        boolean before = counts(previousStatus);
+        boolean after = counts(order.getStatus());
+        if (before != after) {
+            apply(List.of(order), after ? 1 : -1);
+        }
+    }
+    
+    // take a deleted order back out of the aggregates
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Order order) {
+        if (counts(order.getStatus())) {
+            apply(List.of(order), -1);
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ProductSales> getTopSellers(int limit) {
+        return productSalesRepository.findAllByOrderByUnitsSoldDesc(Limit.of(limit));
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<ProductSales> getProductSales(Long productId) {
+        return productSalesRepository.findById(productId);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ProductSalesDaily> getDailySales(Long productId, LocalDate from, LocalDate to) {
+        return productSalesDailyRepository.findByProductIdAndSalesDateBetweenOrderBySalesDate(productId, from, to);
+    }
+    
+    // recompute both aggregates from order_items, for backfills or after manual data fixes
+    public Map<String, Object> rebuild() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int[] rows = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("DELETE FROM product_sales_daily");
+            jdbcTemplate.update("DELETE FROM product_sales");
+            return new int[] { jdbcTemplate.update(REBUILD_TOTALS), jdbcTemplate.update(REBUILD_DAILY) };
+        });
+        long durationNanos = sample.stop(meterRegistry.timer("order.sales.rebuild"));
+        logger.info("Rebuilt sales aggregates: {} products, {} daily buckets", rows[0], rows[1]);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("products", rows[0]);
+        result.put("dailyBuckets", rows[1]);
+        result.put("durationMs", durationNanos / 1_000_000);
+        result.put("timestamp", LocalDateTime.now().toString());
+        return result;
+    }
+    
+    //disabled unless order.sales.rebuild-cron is set
+    @Scheduled(cron = "${order.sales.rebuild-cron:-}")
+    void scheduledRebuild() {
+        rebuild();
+    }
+    
+    private boolean counts(OrderStatus status) {
+        return status != OrderStatus.CANCELLED;
+    }
+    
+    private void apply(List<Order> orders, int sign) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        //fold every line into one delta per product and per product-day; sorted keys keep row lock order stable
+        Map<Long, Delta> totals = new TreeMap<>();
+        Map<ProductDay, Delta> daily = new TreeMap<>();
+        for (Order order : orders) {
+            LocalDate day = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+            Set<Long> seen = new HashSet<>();
+            for (OrderItem item : order.getOrderItems()) {
+                boolean firstLine = seen.add(item.getProductId());
+                totals.computeIfAbsent(item.getProductId(), id -> new Delta()).add(item, firstLine);
+                daily.computeIfAbsent(new ProductDay(item.getProductId(), day), key -> new Delta()).add(item, firstLine);
+            }
+        }
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> totalArgs = new ArrayList<>(totals.size());
+        totals.forEach((productId, delta) -> totalArgs.add(new Object[] {
+                productId, sign * delta.units, delta.revenue.multiply(BigDecimal.valueOf(sign)), sign * delta.orders, now }));
+        List<Object[]> dailyArgs = new ArrayList<>(daily.size());
+        daily.forEach((key, delta) -> dailyArgs.add(new Object[] {
+                key.productId(), Date.valueOf(key.day()), sign * delta.units, delta.revenue.multiply(BigDecimal.valueOf(sign)), sign * delta.orders }));
+        
+        jdbcTemplate.batchUpdate(UPSERT_TOTALS, totalArgs);
+        jdbcTemplate.batchUpdate(UPSERT_DAILY, dailyArgs);
+    }
+    
+    private record ProductDay(Long productId, LocalDate day) implements Comparable<ProductDay> {
+        @Override
+        public int compareTo(ProductDay other) {
+            int byProduct = productId.compareTo(other.productId);
+            return byProduct != 0 ? byProduct : day.compareTo(other.day);
+        }
+    }
+    
+    private static class Delta {
+        long units;
+        BigDecimal revenue = BigDecimal.ZERO;
+        long orders;
+        
+        void add(OrderItem item, boolean firstLineForOrder) {
+            units += item.getQuantity();
+            revenue = revenue.add(item.getTotalPrice());
+            if (firstLineForOrder) {
+                orders++;
+            }
+        }
+    }
+}
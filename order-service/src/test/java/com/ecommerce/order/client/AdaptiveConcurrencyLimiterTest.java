@@ -0,0 +1,101 @@
+package com.ecommerce.order.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimiterTest {
+    
+    private static final long THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+    
+    @Test
+    void rejectsCallsBeyondTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.5, THRESHOLD);
+        
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+    
+    @Test
+    void growsByAboutOnePerRoundOfFastCalls() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5, THRESHOLD);
+        
+        //ten fast calls at a fully used limit of 10 are one round and add less than one
+        fastCallsAtFullLimit(limiter, 10);
+        assertEquals(10, limiter.getLimit());
+        fastCallsAtFullLimit(limiter, 10);
+        assertEquals(11, limiter.getLimit());
+    }
+    
+    @Test
+    void doesNotGrowWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5, THRESHOLD);
+        
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, false);
+        }
+        assertEquals(10, limiter.getLimit());
+    }
+    
+    @Test
+    void backsOffOnSlowOrFailedCallsDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 2, 100, 0.5, THRESHOLD);
+        
+        assertTrue(limiter.tryAcquire());
+        limiter.release(SLOW, false);
+        assertEquals(8, limiter.getLimit());
+        
+        assertTrue(limiter.tryAcquire());
+        limiter.release(FAST, true);
+        assertEquals(4, limiter.getLimit());
+        
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(SLOW, false);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+    
+    @Test
+    void neverGrowsPastTheMaximum() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 5, 0.5, THRESHOLD);
+        
+        fastCallsAtFullLimit(limiter, 1000);
+        assertEquals(5, limiter.getLimit());
+    }
+    
+    @Test
+    void cancelledCallsFreeTheirPermitWithoutMovingTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 100, 0.5, THRESHOLD);
+        
+        fastCallsAtFullLimit(limiter, 0);
+        limiter.cancel(FAST);
+        assertEquals(9, limiter.getInFlight());
+        assertEquals(10, limiter.getLimit());
+        
+        //slowness it already showed before being cancelled still counts
+        limiter.cancel(SLOW);
+        assertEquals(8, limiter.getInFlight());
+        assertEquals(5, limiter.getLimit());
+    }
+    
+    //keep every permit busy and complete one call at a time
+    private void fastCallsAtFullLimit(AdaptiveConcurrencyLimiter limiter, int calls) {
+        while (limiter.tryAcquire()) {
+        }
+        for (int i = 0; i < calls; i++) {
+            limiter.release(FAST, false);
+            while (limiter.tryAcquire()) {
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.ecommerce.order.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClient;
+
+import com.ecommerce.order.dto.ProductDto;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//two local product-service instances behind a stub DiscoveryClient; the first one is always asked first
+class HedgedProductReaderTest {
+    
+    private static final long SLOW_MILLIS = 3000;
+    
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    private final StubInstance first = new StubInstance("first");
+    private final StubInstance second = new StubInstance("second");
+    private DelayedHedgeGuard guard;
+    private HedgedProductReader reader;
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        first.start();
+        second.start();
+        guard = new DelayedHedgeGuard();
+        ReflectionTestUtils.setField(guard, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(guard, "maxConcurrent", 64);
+        ReflectionTestUtils.setField(guard, "initialLimit", 20);
+        ReflectionTestUtils.setField(guard, "minLimit", 2);
+        ReflectionTestUtils.setField(guard, "maxLimit", 64);
+        ReflectionTestUtils.setField(guard, "backoffRatio", 0.9);
+        ReflectionTestUtils.setField(guard, "latencyThresholdMillis", 500L);
+        guard.init();
+        
+        reader = new HedgedProductReader();
+        ReflectionTestUtils.setField(reader, "discoveryClient", discovery(first, second));
+        ReflectionTestUtils.setField(reader, "restClientBuilder", RestClient.builder());
+        ReflectionTestUtils.setField(reader, "connectionManager", connectionManager);
+        ReflectionTestUtils.setField(reader, "guard", guard);
+        ReflectionTestUtils.setField(reader, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(reader, "enabled", true);
+        //every read may hedge
+        ReflectionTestUtils.setField(reader, "budgetPercent", 100.0);
+        ReflectionTestUtils.setField(reader, "minDelayMillis", 20L);
+        ReflectionTestUtils.setField(reader, "defaultDelayMillis", 50L);
+        reader.init();
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        reader.shutdown();
+        connectionManager.close();
+        first.stop();
+        second.stop();
+    }
+    
+    @Test
+    void returnsAFastAnswerWithoutHedging() {
+        assertEquals("first", read().getName());
+        
+        assertEquals(0, second.hits.get());
+        assertEquals(0.0, hedges("fired"));
+    }
+    
+    @Test
+    void hedgesASlowReadAndAbortsTheLoser() {
+        first.delayMillis = SLOW_MILLIS;
+        long start = System.nanoTime();
+        
+        assertEquals("second", read().getName());
+        
+        assertTrue(elapsedMillis(start) < SLOW_MILLIS / 2);
+        assertEquals(1.0, hedges("won"));
+        //the aborted request gives its guard permit back long before the slow instance would have answered
+        awaitUntil(() -> inFlight() == 0);
+    }
+    
+    @Test
+    void abortsTheHedgeWhenTheFirstAnswerWins() {
+        first.delayMillis = 150;
+        second.delayMillis = SLOW_MILLIS;
+        
+        assertEquals("first", read().getName());
+        
+        assertEquals(1.0, hedges("fired"));
+        assertEquals(0.0, hedges("won"));
+        awaitUntil(() -> inFlight() == 0);
+    }
+    
+    @Test
+    void cancelsAHedgeAbortedBeforeItsRequestExists() throws InterruptedException {
+        first.delayMillis = 150;
+        //the hedge only builds its request once the first answer has already won
+        guard.hedgeStartDelayMillis = 400;
+        
+        assertEquals("first", read().getName());
+        
+        awaitUntil(() -> guard.calls.get() == 2 && inFlight() == 0);
+        Thread.sleep(100);
+        assertEquals(0, second.hits.get());
+    }
+    
+    @Test
+    void failsOverWhenTheFirstInstanceErrors() {
+        first.status = 503;
+        //the 503 has to come back before the hedge delay, so the client must not retry it on the same instance
+        ReflectionTestUtils.setField(reader, "defaultDelayMillis", 500L);
+        
+        assertEquals("second", read().getName());
+        
+        assertEquals(1.0, hedges("failover"));
+    }
+    
+    @Test
+    void failsOnlyOnceBothAttemptsHaveFailed() {
+        first.delayMillis = 300;
+        first.status = 500;
+        second.status = 500;
+        long start = System.nanoTime();
+        
+        assertThrows(HttpServerErrorException.class, this::read);
+        
+        //the hedge failed first; the read still waited for the first attempt
+        assertTrue(elapsedMillis(start) >= 300);
+        assertEquals(1, second.hits.get());
+    }
+    
+    @Test
+    void readsDirectlyWithASingleInstance() {
+        ReflectionTestUtils.setField(reader, "discoveryClient", discovery(first));
+        
+        assertEquals("direct", reader.getProductById(1L, () -> new ProductDto(1L, "direct", BigDecimal.ONE, 1)).getName());
+        
+        assertEquals(0, first.hits.get());
+    }
+    
+    @Test
+    void leavesNoAttemptBoundToItsThreads() throws Exception {
+        first.delayMillis = 150;
+        read();
+        awaitUntil(() -> inFlight() == 0);
+        
+        ThreadLocal<?> currentAbort = (ThreadLocal<?>) ReflectionTestUtils.getField(HedgedProductReader.class, "CURRENT_ABORT");
+        ExecutorService executor = (ExecutorService) ReflectionTestUtils.getField(reader, "executor");
+        //hold each task open so every idle attempt thread gets one
+        CountDownLatch running = new CountDownLatch(4);
+        List<Future<Object>> bound = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            bound.add(executor.submit(() -> {
+                running.countDown();
+                running.await(5, TimeUnit.SECONDS);
+                return currentAbort.get();
+            }));
+        }
+        for (Future<Object> abort : bound) {
+            assertNull(abort.get(5, TimeUnit.SECONDS));
+        }
+    }
+    
+    private ProductDto read() {
+        return reader.getProductById(1L, () -> {
+            throw new AssertionError("Read should have been hedged");
+        });
+    }
+    
+    private double hedges(String outcome) {
+        return meterRegistry.counter("order.product-client.hedges", "outcome", outcome).count();
+    }
+    
+    private double inFlight() {
+        return meterRegistry.get("order.product-client.in-flight").gauge().value();
+    }
+    
+    private static long elapsedMillis(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+    
+    //fails well before a slow instance would have answered on its own
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(SLOW_MILLIS / 2);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not reached in time");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+    
+    private static DiscoveryClient discovery(StubInstance... stubs) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (StubInstance stub : stubs) {
+            instances.add(new DefaultServiceInstance(stub.name, "product-service", "localhost", stub.port(), false));
+        }
+        DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+        when(discoveryClient.getInstances("product-service")).thenReturn(instances);
+        return discoveryClient;
+    }
+    
+    //delays hedges, i.e. every call after the first, before they reach the HTTP client
+    private static final class DelayedHedgeGuard extends ProductServiceGuard {
+        
+        private final AtomicInteger calls = new AtomicInteger();
+        
+        private volatile long hedgeStartDelayMillis;
+        
+        @Override
+        public <T> T call(String operation, Supplier<T> call) {
+            if (calls.incrementAndGet() > 1 && hedgeStartDelayMillis > 0) {
+                try {
+                    Thread.sleep(hedgeStartDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.call(operation, call);
+        }
+    }
+    
+    //one product-service instance answering GET /api/products/{id} with a product named after it
+    private static final class StubInstance {
+        
+        private final String name;
+        
+        private final AtomicInteger hits = new AtomicInteger();
+        
+        private volatile long delayMillis;
+        
+        private volatile int status = 200;
+        
+        private HttpServer server;
+        
+        private ExecutorService handlers;
+        
+        StubInstance(String name) {
+            this.name = name;
+        }
+        
+        void start() throws IOException {
+            byte[] body = new CBORMapper().writeValueAsBytes(new ProductDto(1L, name, new BigDecimal("9.99"), 5));
+            handlers = Executors.newCachedThreadPool();
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(handlers);
+            server.createContext("/api/products/", exchange -> {
+                hits.incrementAndGet();
+                try {
+                    Thread.sleep(delayMillis);
+                    if (status != 200) {
+                        byte[] error = "{}".getBytes(StandardCharsets.UTF_8);
+                        exchange.getResponseHeaders().set("Content-Type", "application/json");
+                        exchange.sendResponseHeaders(status, error.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(error);
+                        }
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("Content-Type", "application/cbor");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (IOException e) {
+                    //the client aborted the request
+                } finally {
+                    exchange.close();
+                }
+            });
+            server.start();
+        }
+        
+        int port() {
+            return server.getAddress().getPort();
+        }
+        
+        void stop() {
+            server.stop(0);
+            handlers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ecommerce.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecommerce.order.dto.OrderEvent;
+import com.ecommerce.order.entity.OrderEventType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OrderEventStreamServiceTest {
+    
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final CountDownLatch querying = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private OrderEventStreamService service;
+    
+    @BeforeEach
+    void setUp() {
+        //a slow outbox read that holds until the test lets it go
+        when(outboxService.getLatestEventId()).thenReturn(0L);
+        when(outboxService.getEventsAfter(anyLong(), anyInt())).thenAnswer(call -> {
+            querying.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            long after = call.getArgument(0);
+            return after == 0L ? List.of(event(1L)) : List.of();
+        });
+        service = new OrderEventStreamService();
+        ReflectionTestUtils.setField(service, "outboxService", outboxService);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "bufferSize", 16);
+        ReflectionTestUtils.setField(service, "maxSubscribers", 10);
+        ReflectionTestUtils.setField(service, "timeoutMillis", 60_000L);
+        ReflectionTestUtils.setField(service, "senderThreads", 1);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        ReflectionTestUtils.invokeMethod(service, "init");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        ReflectionTestUtils.invokeMethod(service, "shutdown");
+    }
+    
+    @Test
+    void subscribesWhilePollIsWaitingOnTheOutbox() throws Exception {
+        service.subscribe(null, null, null);
+        CompletableFuture<Void> poll = CompletableFuture.runAsync(service::poll);
+        assertTrue(querying.await(5, TimeUnit.SECONDS));
+        
+        //would block until the query returned if poll held the lock across it
+        assertNotNull(CompletableFuture.supplyAsync(() -> service.subscribe("customer@example.com", null, null))
+                .get(1, TimeUnit.SECONDS));
+        
+        release.countDown();
+        poll.get(5, TimeUnit.SECONDS);
+        assertEquals(1L, ReflectionTestUtils.getField(service, "position"));
+    }
+    
+    private static OrderEvent event(Long id) {
+        return new OrderEvent(id, OrderEventType.ORDER_CREATED, 1L,
+                "{\"customerEmail\":\"customer@example.com\",\"status\":\"PENDING\"}", LocalDateTime.now());
+    }
+}
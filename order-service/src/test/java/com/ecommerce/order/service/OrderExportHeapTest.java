@@ -0,0 +1,125 @@
+package com.ecommerce.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//exports a large range into a discarding stream and samples the live heap while rows flow through. The default run
+//is scaled down; "mvn -Pexport-heap test" exports 1,000,000 item rows under -Xmx128m. H2 keeps its data in a file
+//with a small page cache and spills sorts to disk, so only the export itself could make the heap grow
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/export-heap/orders;MODE=MySQL;CACHE_SIZE=4096;MAX_MEMORY_ROWS=1000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "order.export.fetch-size=500" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(OrderExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class OrderExportHeapTest {
+    
+    private static final int ROWS = Integer.getInteger("order.export.test-rows", 40_000);
+    private static final int ITEMS_PER_ORDER = 4;
+    private static final long MAX_HEAP_GROWTH = 16L * 1024 * 1024;
+    
+    @Autowired
+    private OrderExportService orderExportService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        jdbcTemplate.update("INSERT INTO orders (id, customer_email, customer_name, total_amount, status, created_at, " +
+                "updated_at, version, stale_pricing, stock_reserved) " +
+                "SELECT X, 'customer' || X || '@example.com', 'Customer ' || X, 40.00, 'DELIVERED', " +
+                "DATEADD(SECOND, X, TIMESTAMP '2024-01-01 00:00:00'), TIMESTAMP '2024-01-01 00:00:00', 0, FALSE, TRUE " +
+                "FROM SYSTEM_RANGE(1, ?)", ROWS / ITEMS_PER_ORDER);
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, product_name, quantity, unit_price, total_price) " +
+                "SELECT X, (X - 1) / ? + 1, MOD(X, 100) + 1, 'Product ' || MOD(X, 100), 1, 10.00, 10.00 " +
+                "FROM SYSTEM_RANGE(1, ?)", ITEMS_PER_ORDER, ROWS);
+    }
+    
+    @Test
+    void exportsEveryRowWithAFlatHeap() throws Exception {
+        HeapSamplingStream out = new HeapSamplingStream();
+        
+        long rows = orderExportService.export(LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 1, 0, 0),
+                OrderExportService.Format.NDJSON, false, out);
+        
+        assertEquals(ROWS, rows);
+        assertTrue(out.samples > 1, "Export too small to sample the heap while it runs");
+        long growth = out.peakUsed - out.baselineUsed;
+        assertTrue(growth < MAX_HEAP_GROWTH, "Heap grew by " + growth / 1024 + " KB while exporting " + ROWS + " rows");
+    }
+    
+    //discards what it is given, measuring the live heap after every megabyte of output
+    private static final class HeapSamplingStream extends OutputStream {
+        
+        private static final long SAMPLE_EVERY = 1024 * 1024;
+        
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final long baselineUsed = liveHeap();
+        private long peakUsed = baselineUsed;
+        private long written;
+        private int samples;
+        
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+        
+        private void count(int bytes) {
+            long before = written / SAMPLE_EVERY;
+            written += bytes;
+            if (written / SAMPLE_EVERY != before) {
+                peakUsed = Math.max(peakUsed, liveHeap());
+                samples++;
+            }
+        }
+        
+        private long liveHeap() {
+            System.gc();
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+    
+    @TestConfiguration
+    static class Metrics {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
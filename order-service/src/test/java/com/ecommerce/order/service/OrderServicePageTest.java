@@ -0,0 +1,145 @@
+package com.ecommerce.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import com.ecommerce.order.client.ProductServiceClient;
+import com.ecommerce.order.dto.OrderPage;
+import com.ecommerce.order.dto.OrderView;
+import com.ecommerce.order.entity.OrderStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+@Import(OrderService.class)
+class OrderServicePageTest {
+    
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @MockBean
+    private ProductLookupService productLookupService;
+    
+    @MockBean
+    private ProductServiceClient productServiceClient;
+    
+    @MockBean
+    private OutboxService outboxService;
+    
+    @MockBean
+    private SalesAggregateService salesAggregateService;
+    
+    @MockBean
+    private CustomerOrderCache customerOrderCache;
+    
+    @MockBean
+    private OrderStatusCounters orderStatusCounters;
+    
+    @MockBean
+    private OrderWriter orderWriter;
+    
+    @MockBean
+    private OrderPricer orderPricer;
+    
+    @MockBean
+    private ProductSnapshotCache productSnapshotCache;
+    
+    @MockBean
+    private MeterRegistry meterRegistry;
+    
+    @Test
+    void returnsOrdersInCreationOrderWhateverTheirIds() {
+        //two instances drawing ids from different sequence blocks
+        insert(51, 1, OrderStatus.PENDING);
+        insert(1, 2, OrderStatus.PENDING);
+        insert(52, 3, OrderStatus.PENDING);
+        insert(2, 4, OrderStatus.PENDING);
+        
+        assertEquals(List.of(51L, 1L, 52L, 2L), walk(null, 3));
+    }
+    
+    @Test
+    void breaksCreationTimeTiesById() {
+        insert(7, 1, OrderStatus.PENDING);
+        insert(3, 1, OrderStatus.PENDING);
+        insert(5, 1, OrderStatus.PENDING);
+        
+        assertEquals(List.of(3L, 5L, 7L), walk(null, 1));
+    }
+    
+    @Test
+    void findsOrdersWithLowerIdsInsertedBehindAnOpenCursor() {
+        insert(51, 1, OrderStatus.PENDING);
+        insert(52, 2, OrderStatus.PENDING);
+        insert(53, 3, OrderStatus.PENDING);
+        OrderPage first = orderService.getOrdersPage(null, null, 2);
+        assertEquals(List.of(51L, 52L), ids(first));
+        
+        //the other instance commits an order from its lower block while the walk is open
+        insert(1, 4, OrderStatus.PENDING);
+        OrderPage second = orderService.getOrdersPage(null, first.nextCursor(), 2);
+        
+        assertEquals(List.of(53L, 1L), ids(second));
+        assertNull(second.nextCursor());
+    }
+    
+    @Test
+    void pagesWithinOneStatus() {
+        insert(51, 1, OrderStatus.SHIPPED);
+        insert(1, 2, OrderStatus.PENDING);
+        insert(52, 3, OrderStatus.SHIPPED);
+        insert(2, 4, OrderStatus.SHIPPED);
+        
+        assertEquals(List.of(51L, 52L, 2L), walk(OrderStatus.SHIPPED, 2));
+    }
+    
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersPage(null, "not a cursor!", 10));
+        //"2024|1": well-formed base64 around a timestamp that does not parse
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersPage(null, "MjAyNHwx", 10));
+    }
+    
+    private List<Long> walk(OrderStatus status, int size) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            OrderPage page = orderService.getOrdersPage(status, cursor, size);
+            seen.addAll(ids(page));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+    
+    private static List<Long> ids(OrderPage page) {
+        return page.content().stream().map(OrderView::id).toList();
+    }
+    
+    private void insert(long id, int minute, OrderStatus status) {
+        entityManager.createNativeQuery("INSERT INTO orders (id, customer_email, customer_name, total_amount, status, " +
+                        "created_at, updated_at, version, stale_pricing, stock_reserved) " +
+                        "VALUES (?, 'customer@example.com', 'Customer', 10.00, ?, ?, ?, 0, FALSE, TRUE)")
+                .setParameter(1, id)
+                .setParameter(2, status.name())
+                .setParameter(3, START.plusMinutes(minute))
+                .setParameter(4, START.plusMinutes(minute))
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,149 @@
+package com.ecommerce.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import com.ecommerce.order.client.ProductServiceClient;
+import com.ecommerce.order.dto.OrderPage;
+import com.ecommerce.order.dto.OrderView;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+
+//every listing must load its orders and their items in a fixed number of statements, however many orders match
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(OrderService.class)
+class OrderServiceQueryCountTest {
+    
+    private static final int ORDERS = 5;
+    private static final int ITEMS_PER_ORDER = 3;
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @MockBean
+    private ProductLookupService productLookupService;
+    
+    @MockBean
+    private ProductServiceClient productServiceClient;
+    
+    @MockBean
+    private OutboxService outboxService;
+    
+    @MockBean
+    private SalesAggregateService salesAggregateService;
+    
+    @MockBean
+    private CustomerOrderCache customerOrderCache;
+    
+    @MockBean
+    private OrderStatusCounters orderStatusCounters;
+    
+    @MockBean
+    private OrderWriter orderWriter;
+    
+    @MockBean
+    private OrderPricer orderPricer;
+    
+    @MockBean
+    private ProductSnapshotCache productSnapshotCache;
+    
+    @MockBean
+    private MeterRegistry meterRegistry;
+    
+    private Statistics statistics;
+    
+    private final List<Long> orderIds = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        //always a cache miss, so the loader runs
+        when(customerOrderCache.get(anyString(), any())).thenAnswer(call -> call.<Supplier<?>>getArgument(1).get());
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds.add(persistOrder().getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+    
+    @Test
+    void loadsAllOrdersInOneStatement() {
+        assertAllItemsLoaded(orderService.getAllOrders());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void loadsOneOrderInOneStatement() {
+        assertAllItemsLoaded(List.of(orderService.getOrderById(orderIds.get(0)).orElseThrow()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void loadsACustomersOrdersInOneStatement() {
+        assertAllItemsLoaded(orderService.getOrdersByCustomerEmail("customer@example.com"));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void loadsOrdersByStatusInOneStatement() {
+        assertAllItemsLoaded(orderService.getOrdersByStatus(OrderStatus.PENDING));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+    
+    @Test
+    void loadsAPageInTwoStatements() {
+        OrderPage page = orderService.getOrdersPage(null, null, ORDERS);
+        
+        assertAllItemsLoaded(page.content());
+        //one for the page of orders, one for all of their items
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+    
+    private static void assertAllItemsLoaded(List<OrderView> views) {
+        for (OrderView view : views) {
+            assertEquals(ITEMS_PER_ORDER, view.orderItems().size());
+        }
+    }
+    
+    private Order persistOrder() {
+        Order order = new Order("customer@example.com", "Customer", new BigDecimal("30.00"));
+        List<OrderItem> items = new ArrayList<>();
+        for (long productId = 1; productId <= ITEMS_PER_ORDER; productId++) {
+            OrderItem item = new OrderItem();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            item.setProductName("Product " + productId);
+            item.setUnitPrice(new BigDecimal("10.00"));
+            item.setTotalPrice(new BigDecimal("10.00"));
+            item.setOrder(order);
+            items.add(item);
+        }
+        order.setOrderItems(items);
+        entityManager.persist(order);
+        return order;
+    }
+}
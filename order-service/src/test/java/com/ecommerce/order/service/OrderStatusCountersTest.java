@@ -0,0 +1,116 @@
+package com.ecommerce.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.repository.OrderRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OrderStatusCountersTest {
+    
+    private final List<Object[]> databaseCounts = new ArrayList<>();
+    private OrderStatusCounters counters;
+    
+    @BeforeEach
+    void setUp() {
+        OrderRepository repository = mock(OrderRepository.class);
+        when(repository.countByStatus()).thenAnswer(invocation -> databaseCounts);
+        counters = new OrderStatusCounters();
+        ReflectionTestUtils.setField(counters, "orderRepository", repository);
+        ReflectionTestUtils.setField(counters, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(counters, "maxSkippedReconciles", 5);
+        counters.init();
+        counters.reconcile();
+    }
+    
+    @Test
+    void concurrentTransitionsKeepEveryCount() throws Exception {
+        int threads = 8;
+        int ordersPerThread = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    counters.recordCreated(OrderStatus.PENDING);
+                    counters.recordTransition(OrderStatus.PENDING, OrderStatus.CONFIRMED);
+                    if (i % 2 == 0) {
+                        counters.recordTransition(OrderStatus.CONFIRMED, OrderStatus.CANCELLED);
+                    }
+                    if (i % 4 == 0) {
+                        counters.recordDeleted(OrderStatus.CANCELLED);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+        
+        int orders = threads * ordersPerThread;
+        assertEquals(0L, count("PENDING"));
+        assertEquals(orders / 2L, count("CONFIRMED"));
+        assertEquals(orders / 4L, count("CANCELLED"));
+        assertEquals(orders * 3L / 4, total());
+    }
+    
+    @Test
+    void countsOnlyOnceTheWriteCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counters.recordCreated(OrderStatus.PENDING);
+            assertEquals(0L, count("PENDING"));
+            
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(1L, count("PENDING"));
+    }
+    
+    @Test
+    void reconcileCorrectsDriftFromTheDatabase() {
+        counters.recordCreated(OrderStatus.PENDING);
+        counters.recordCreated(OrderStatus.PENDING);
+        databaseCounts.add(new Object[] { OrderStatus.PENDING, 5L });
+        databaseCounts.add(new Object[] { OrderStatus.SHIPPED, 3L });
+        
+        counters.reconcile();
+        
+        assertEquals(5L, count("PENDING"));
+        assertEquals(3L, count("SHIPPED"));
+        assertEquals(8L, total());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private long count(String status) {
+        return ((Map<String, Long>) counters.getSummary().get("counts")).get(status);
+    }
+    
+    private long total() {
+        return (Long) counters.getSummary().get("total");
+    }
+    
+}
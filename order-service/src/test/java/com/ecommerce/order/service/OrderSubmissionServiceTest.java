@@ -0,0 +1,138 @@
+package com.ecommerce.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderSubmission;
+import com.ecommerce.order.entity.SubmissionStatus;
+import com.ecommerce.order.repository.OrderSubmissionRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//one worker, so a second submission waits in the queue for as long as the test holds the first
+@DataJpaTest(properties = "order.submission.workers=1")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(OrderSubmissionService.class)
+class OrderSubmissionServiceTest {
+    
+    @Autowired
+    private OrderSubmissionService orderSubmissionService;
+    
+    @Autowired
+    private OrderSubmissionRepository orderSubmissionRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @MockBean
+    private OrderService orderService;
+    
+    @BeforeEach
+    void setUp() {
+        orderSubmissionRepository.deleteAll();
+    }
+    
+    @Test
+    void failsSubmissionsStuckPastTheCutoff() {
+        OrderSubmission queued = submission(SubmissionStatus.QUEUED, 30);
+        OrderSubmission processing = submission(SubmissionStatus.PROCESSING, 30);
+        OrderSubmission fresh = submission(SubmissionStatus.QUEUED, 1);
+        OrderSubmission completed = submission(SubmissionStatus.COMPLETED, 30);
+        
+        orderSubmissionService.failStale();
+        
+        assertEquals(SubmissionStatus.FAILED, status(queued));
+        assertEquals(SubmissionStatus.FAILED, status(processing));
+        assertTrue(orderSubmissionRepository.findById(queued.getId()).orElseThrow().getError().contains("resubmit"));
+        assertEquals(SubmissionStatus.QUEUED, status(fresh));
+        assertEquals(SubmissionStatus.COMPLETED, status(completed));
+    }
+    
+    @Test
+    void doesNotCreateAnOrderWhoseSubmissionWasFailedAsStale() throws InterruptedException {
+        CountDownLatch working = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.createOrder(any())).thenAnswer(call -> {
+            working.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            Order order = call.getArgument(0);
+            order.setId(1L);
+            return order;
+        });
+        OrderSubmission first = orderSubmissionService.submit(order());
+        assertTrue(working.await(10, TimeUnit.SECONDS));
+        OrderSubmission second = orderSubmissionService.submit(order());
+        
+        //the second one has waited behind the first for longer than the cutoff
+        age(second, 30);
+        orderSubmissionService.failStale();
+        release.countDown();
+        
+        awaitStatus(first, SubmissionStatus.COMPLETED);
+        Thread.sleep(200);
+        verify(orderService, times(1)).createOrder(any());
+        assertEquals(SubmissionStatus.FAILED, status(second));
+    }
+    
+    private OrderSubmission submission(SubmissionStatus status, int minutesOld) {
+        OrderSubmission submission = orderSubmissionRepository.save(
+                new OrderSubmission(UUID.randomUUID().toString(), "customer@example.com"));
+        jdbcTemplate.update("UPDATE order_submissions SET status = ? WHERE id = ?", status.name(), submission.getId());
+        age(submission, minutesOld);
+        return submission;
+    }
+    
+    private void age(OrderSubmission submission, int minutes) {
+        jdbcTemplate.update("UPDATE order_submissions SET updated_at = ? WHERE id = ?",
+                LocalDateTime.now().minusMinutes(minutes), submission.getId());
+    }
+    
+    private SubmissionStatus status(OrderSubmission submission) {
+        return orderSubmissionRepository.findById(submission.getId()).orElseThrow().getStatus();
+    }
+    
+    private void awaitStatus(OrderSubmission submission, SubmissionStatus expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (status(submission) != expected) {
+            assertTrue(System.nanoTime() < deadline, "Submission never reached " + expected);
+            Thread.sleep(10);
+        }
+    }
+    
+    private static Order order() {
+        return new Order("customer@example.com", "Customer", new BigDecimal("10.00"));
+    }
+    
+    @TestConfiguration
+    static class Metrics {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ecommerce.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecommerce.order.entity.OutboxEvent;
+import com.ecommerce.order.repository.OutboxEventRepository;
+
+class OutboxServiceTest {
+    
+    private final List<OutboxEvent> visible = new ArrayList<>();
+    private OutboxService outboxService;
+    
+    @BeforeEach
+    void setUp() {
+        //the visible events above the offset in id order
+        OutboxEventRepository repository = mock(OutboxEventRepository.class);
+        when(repository.findBatchAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            return visible.stream().filter(event -> event.getId() > afterId).toList();
+        });
+        outboxService = new OutboxService();
+        ReflectionTestUtils.setField(outboxService, "outboxEventRepository", repository);
+        ReflectionTestUtils.setField(outboxService, "gapTimeoutMillis", 30_000L);
+        ReflectionTestUtils.setField(outboxService, "gapHorizonMillis", 600_000L);
+    }
+    
+    @Test
+    void readsContiguousEvents() {
+        event(1, 0);
+        event(2, 0);
+        event(3, 0);
+        
+        assertEquals(List.of(1L, 2L, 3L), ids(outboxService.getCommittedBatchAfter(0L, 10)));
+    }
+    
+    @Test
+    void stopsBeforeAMissingIdThatMayStillCommit() {
+        event(1, 0);
+        event(3, 0);
+        
+        assertEquals(List.of(1L), ids(outboxService.getCommittedBatchAfter(0L, 10)));
+        assertEquals(List.of(), ids(outboxService.getCommittedBatchAfter(1L, 10)));
+        
+        //the slow transaction commits and the read continues through it
+        event(2, 0);
+        assertEquals(List.of(2L, 3L), ids(outboxService.getCommittedBatchAfter(1L, 10)));
+    }
+    
+    @Test
+    void waitsOutTheTimeoutFromWhenAGapIsFirstSeen() throws InterruptedException {
+        ReflectionTestUtils.setField(outboxService, "gapTimeoutMillis", 100L);
+        //created long ago, but only just visible: the transaction holding 2 may still be running
+        event(1, 60);
+        event(3, 60);
+        event(5, 0);
+        
+        assertEquals(List.of(1L), ids(outboxService.getCommittedBatchAfter(0L, 10)));
+        Thread.sleep(150);
+        //gap 4 is only seen now that the read gets past 3
+        assertEquals(List.of(1L, 3L), ids(outboxService.getCommittedBatchAfter(0L, 10)));
+        Thread.sleep(150);
+        assertEquals(List.of(1L, 3L, 5L), ids(outboxService.getCommittedBatchAfter(0L, 10)));
+    }
+    
+    @Test
+    void skipsGapsBelowEventsOlderThanTheHorizonAtOnce() {
+        ReflectionTestUtils.setField(outboxService, "gapHorizonMillis", 30_000L);
+        event(1, 60);
+        event(3, 60);
+        event(5, 0);
+        
+        assertEquals(List.of(1L, 3L), ids(outboxService.getCommittedBatchAfter(0L, 10)));
+    }
+    
+    private void event(long id, long ageSeconds) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(id);
+        event.setCreatedAt(LocalDateTime.now().minusSeconds(ageSeconds));
+        visible.add(event);
+        visible.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+    }
+    
+    private static List<Long> ids(List<OutboxEvent> events) {
+        return events.stream().map(OutboxEvent::getId).toList();
+    }
+
+}
@@ -0,0 +1,125 @@
+package com.ecommerce.order.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import com.ecommerce.order.client.ProductServiceClient;
+import com.ecommerce.order.dto.ImportResult;
+import com.ecommerce.order.dto.ProductDto;
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderItem;
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.repository.OrderRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DataJpaTest
+@Import({ OrderImportService.class, PendingReservationService.class, OrderPricer.class })
+@ImportAutoConfiguration({ JacksonAutoConfiguration.class, ValidationAutoConfiguration.class })
+class PendingReservationServiceTest {
+    
+    @Autowired
+    private OrderImportService orderImportService;
+    
+    @Autowired
+    private PendingReservationService pendingReservationService;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @MockBean
+    private ProductServiceClient productServiceClient;
+    
+    @MockBean
+    private ProductLookupService productLookupService;
+    
+    @MockBean
+    private OrderService orderService;
+    
+    @MockBean
+    private OutboxService outboxService;
+    
+    @MockBean
+    private SalesAggregateService salesAggregateService;
+    
+    @MockBean
+    private CustomerOrderCache customerOrderCache;
+    
+    @MockBean
+    private OrderStatusCounters orderStatusCounters;
+    
+    @Test
+    void leavesImportedPendingOrdersAlone() throws Exception {
+        when(productLookupService.getProducts(any()))
+                .thenReturn(Map.of(1L, new ProductDto(1L, "Widget", new BigDecimal("5.00"), 0)));
+        String feed = "{\"customerEmail\":\"old@example.com\",\"customerName\":\"Old Customer\",\"status\":\"PENDING\","
+                + "\"orderItems\":[{\"productId\":1,\"quantity\":2}]}\n";
+        ImportResult result = orderImportService.importOrders(
+                new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)), OrderImportService.Format.NDJSON);
+        assertEquals(1L, result.ordersImported());
+        
+        pendingReservationService.reservePending();
+        
+        verify(productServiceClient, never()).reserveStock(anyList());
+        verify(orderService, never()).updateOrderStatus(any(), any());
+        Order imported = orderRepository.findAll().get(0);
+        assertEquals(OrderStatus.PENDING, imported.getStatus());
+        assertFalse(imported.isStockReserved());
+    }
+    
+    @Test
+    void reservesOrdersTakenDuringAnOutage() {
+        Order order = new Order("new@example.com", "New Customer", new BigDecimal("10.00"));
+        order.setStalePricing(true);
+        order.setStockReserved(false);
+        order.setReservationId(UUID.randomUUID().toString());
+        OrderItem item = new OrderItem();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        item.setProductName("Widget");
+        item.setUnitPrice(new BigDecimal("5.00"));
+        item.setTotalPrice(new BigDecimal("10.00"));
+        item.setOrder(order);
+        order.setOrderItems(List.of(item));
+        orderRepository.save(order);
+        
+        pendingReservationService.reservePending();
+        
+        verify(productServiceClient).reserveStock(argThat(lines -> lines.size() == 1
+                && order.getReservationId().equals(lines.get(0).getReservationId())));
+    }
+    
+    @TestConfiguration
+    static class Metrics {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
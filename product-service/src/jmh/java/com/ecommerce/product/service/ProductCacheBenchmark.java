@@ -0,0 +1,112 @@
+package com.ecommerce.product.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.InProcessProductInvalidationBroadcast;
+import com.ecommerce.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//lookups by id the way ProductService.getProductById makes them, through ProductCache and straight to the
+//repository with product.cache.enabled=false, on in-memory H2. Ids are drawn uniformly from a catalogue that fits
+//in the cache, so after warmup the cached variant only hits; against MySQL a miss also pays the network round trip
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class ProductCacheBenchmark {
+    
+    @Param({ "true", "false" })
+    public boolean cached;
+    
+    @Param({ "10000" })
+    public int catalogue;
+    
+    private ConfigurableApplicationContext context;
+    
+    private ProductCache productCache;
+    
+    private ProductRepository productRepository;
+    
+    @Setup
+    public void start() {
+        //command-line arguments, so they win over bootstrap.yml
+        context = new SpringApplicationBuilder(CacheContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--spring.cloud.config.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:products;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--logging.level.root=WARN",
+                        "--product.cache.enabled=" + cached);
+        context.getBean(JdbcTemplate.class).update("INSERT INTO products (name, description, price, stock_quantity, " +
+                "category, created_at, updated_at) SELECT 'Product ' || X, 'Description of product ' || X, 19.99, " +
+                "100, 'Category ' || MOD(X, 10), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, ?)", catalogue);
+        productCache = context.getBean(ProductCache.class);
+        productRepository = context.getBean(ProductRepository.class);
+    }
+    
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Product getProductById() {
+        Long id = ThreadLocalRandom.current().nextLong(1, catalogue + 1);
+        return productCache.get(id, () -> productRepository.findById(id).orElse(null));
+    }
+    
+    //the cache and the repository behind it, without the search and facet indexes ProductService also builds
+    @Configuration
+    @ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class, JdbcTemplateAutoConfiguration.class })
+    @EntityScan("com.ecommerce.product.entity")
+    @EnableJpaRepositories("com.ecommerce.product.repository")
+    @Import({ ProductCache.class, InProcessProductInvalidationBroadcast.class })
+    static class CacheContext {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
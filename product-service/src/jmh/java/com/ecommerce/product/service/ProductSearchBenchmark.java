@@ -0,0 +1,125 @@
+package com.ecommerce.product.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.InProcessProductInvalidationBroadcast;
+import com.ecommerce.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+//first page of search results from ProductSearchIndex against the name LIKE query ProductService falls back to,
+//over a generated catalogue on in-memory H2, reported as latency percentiles. Names combine a colour, a kind and
+//a model number, so queries range from a few exact hits to one product in eight; the last term is a prefix
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ProductSearchBenchmark {
+    
+    private static final String[] QUERIES = { "red mouse 42", "wireless", "blue lamp", "green keyb" };
+    
+    private static final int PAGE_SIZE = 20;
+    
+    @Param({ "index", "sql" })
+    public String path;
+    
+    @Param({ "1000000" })
+    public int catalogue;
+    
+    private ConfigurableApplicationContext context;
+    
+    private ProductSearchIndex searchIndex;
+    
+    private ProductRepository productRepository;
+    
+    private int next;
+    
+    @Setup
+    public void start() {
+        //command-line arguments, so they win over bootstrap.yml
+        context = new SpringApplicationBuilder(SearchContext.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run("--spring.cloud.config.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:search;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--logging.level.root=WARN");
+        context.getBean(JdbcTemplate.class).update("INSERT INTO products (name, description, price, stock_quantity, " +
+                "category, created_at, updated_at) SELECT " +
+                "CASEWHEN(MOD(X, 16) < 8, '', 'Wireless ') || " +
+                "ARRAY['Red', 'Blue', 'Green', 'Black', 'White', 'Silver', 'Grey', 'Yellow'][MOD(X, 8) + 1] || ' ' || " +
+                "ARRAY['Mouse', 'Keyboard', 'Lamp', 'Headset', 'Monitor', 'Speaker', 'Webcam'][MOD(X / 8, 7) + 1] || " +
+                "' ' || MOD(X, 5000), 'Model ' || X || ' for home and office', 19.99, 100, " +
+                "'Category ' || MOD(X, 50), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(1, ?)", catalogue);
+        searchIndex = context.getBean(ProductSearchIndex.class);
+        productRepository = context.getBean(ProductRepository.class);
+        //the index built itself on startup, before there were products
+        searchIndex.build();
+    }
+    
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+    
+    @Benchmark
+    public List<?> search() {
+        String query = QUERIES[next++ % QUERIES.length];
+        if (path.equals("index")) {
+            return searchIndex.search(query, 0, PAGE_SIZE).productIds();
+        }
+        List<Product> matches = productRepository.findByNameContainingIgnoreCase(query);
+        return matches.subList(0, Math.min(PAGE_SIZE, matches.size()));
+    }
+    
+    //the index and the repository, without the cache and facets ProductService also keeps
+    @Configuration
+    @ImportAutoConfiguration({ DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class, JdbcTemplateAutoConfiguration.class })
+    @EntityScan("com.ecommerce.product.entity")
+    @EnableJpaRepositories("com.ecommerce.product.repository")
+    @Import({ ProductSearchIndex.class, InProcessProductInvalidationBroadcast.class })
+    static class SearchContext {
+        
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.ecommerce.product.controller;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,14 +23,26 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.ecommerce.product.dto.BulkUpsertResult;
+import com.ecommerce.product.dto.CatalogPage;
+import com.ecommerce.product.dto.ProductSearchPage;
+import com.ecommerce.product.dto.StockAdjustment;
 import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.exception.InsufficientStockException;
+import com.ecommerce.product.service.CatalogService;
+import com.ecommerce.product.service.ProductBulkUpsertService;
 import com.ecommerce.product.service.ProductService;
+import com.ecommerce.product.service.ProductVersions;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 
 @RestController
 @RequestMapping("/api/products")
@@ -29,25 +51,78 @@ public class ProductController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private CatalogService catalogService;
+    
+    @Autowired
+    private ProductVersions productVersions;
+    
+    @Autowired
+    private ProductBulkUpsertService productBulkUpsertService;
+    
+    @Autowired
+    private Validator validator;
+    
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
+    public ResponseEntity<List<Product>> getAllProducts(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        //tag taken before the read, so a concurrent change can only make the tag older than the body
+        String etag = productVersions.catalogETag();
+        if (matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
         List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+        return ok(etag, products);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable("id") Long id){
+    public ResponseEntity<Product> getProductById(@PathVariable("id") Long id, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        //revalidations of a cached product are answered without reading the database
+        String cachedETag = productVersions.cachedProductETag(id);
+        if (cachedETag != null && matches(ifNoneMatch, cachedETag)) {
+            return notModified(cachedETag);
+        }
         Optional<Product> product = productService.getProductById(id);
-        return product.map(ResponseEntity::ok)
-                     .orElse(ResponseEntity.notFound().build());
+        if (product.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = productVersions.productETag(product.get());
+        if (matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ok(etag, product.get());
     }
-
+    
+    @PostMapping("/batch")
+    public ResponseEntity<List<Product>> getProductsByIds(@RequestBody List<Long> ids) {
+        List<Product> products = productService.getProductsByIds(ids);
+        return ResponseEntity.ok(products);
+    }
+    
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) {
         Product savedProduct = productService.saveProduct(product);
         return ResponseEntity.status(HttpStatus.CREATED).body(savedProduct);
     }
     
+    // bulk upsert by SKU from a streamed JSON array or NDJSON body
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> bulkUpsert(HttpServletRequest request) {
+        try {
+            MediaType contentType = MediaType.parseMediaType(request.getContentType());
+            ProductBulkUpsertService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                    ? ProductBulkUpsertService.Format.NDJSON
+                    : ProductBulkUpsertService.Format.JSON;
+            BulkUpsertResult result = productBulkUpsertService.upsert(request.getInputStream(), format);
+            //a feed cut short still reports every row written before the break
+            return ResponseEntity.status(result.feedError() == null ? HttpStatus.OK : HttpStatus.MULTI_STATUS).body(result);
+        } catch (IOException | IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Bulk upsert failed: " + e.getMessage());
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable("id") Long id, @RequestBody Product productDetails) {
         Optional<Product> productOpt = productService.getProductById(id);
@@ -58,6 +133,9 @@ public class ProductController {
             existingProduct.setPrice(productDetails.getPrice());
             existingProduct.setStockQuantity(productDetails.getStockQuantity());
             existingProduct.setCategory(productDetails.getCategory());
+            if (productDetails.getSku() != null) {
+                existingProduct.setSku(productDetails.getSku());
+            }
             
             Product updatedProduct = productService.saveProduct(existingProduct);
             return ResponseEntity.ok(updatedProduct);
@@ -65,7 +143,7 @@ public class ProductController {
         return ResponseEntity.notFound().build();
     }
     
-  
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable("id") Long id) {
         try {
@@ -83,25 +161,73 @@ public class ProductController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-
+    
+    // filtered, sorted catalog page with facet counts; pass nextCursor back as cursor for the next page
+    @GetMapping("/catalog")
+    public ResponseEntity<?> getCatalog(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                        @RequestParam(required = false) String category,
+                                        @RequestParam(required = false) BigDecimal minPrice,
+                                        @RequestParam(required = false) BigDecimal maxPrice,
+                                        @RequestParam(defaultValue = "false") boolean inStock,
+                                        @RequestParam(defaultValue = "PRICE_ASC") String sort,
+                                        @RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "20") int size) {
+        try {
+            if (size < 1 || size > 100) {
+                throw new IllegalArgumentException("Size must be between 1 and 100");
+            }
+            CatalogService.Sort order = CatalogService.Sort.valueOf(sort.toUpperCase(Locale.ROOT));
+            String etag = productVersions.catalogETag();
+            if (matches(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            CatalogPage page = catalogService.query(category, minPrice, maxPrice, inStock, order, cursor, size);
+            return ok(etag, page);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<List<Product>> getProductsByCategory(@PathVariable String category, @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = productVersions.catalogETag();
+        if (matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
         List<Product> products = productService.getProductsByCategory(category);
-        return ResponseEntity.ok(products);
+        return ok(etag, products);
     }
-  
+    
+    // relevance-ranked search; the last word also matches as a prefix, for type-ahead
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String name) {
-        List<Product> products = productService.searchProductsByName(name);
-        return ResponseEntity.ok(products);
+    public ResponseEntity<?> searchProducts(@RequestParam(required = false) String q,
+                                            @RequestParam(required = false) String name,
+                                            @RequestParam(defaultValue = "0") int page,
+                                            @RequestParam(defaultValue = "20") int size) {
+        String query = q != null ? q : name;
+        if (query == null || query.isBlank() || page < 0 || size < 1 || size > 100) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Query is required, page must be >= 0 and size between 1 and 100");
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.badRequest().body(error);
+        }
+        ProductSearchPage results = productService.searchProducts(query, page, size);
+        return ResponseEntity.ok(results);
     }
     
     @GetMapping("/available")
-    public ResponseEntity<List<Product>> getAvailableProducts() {
+    public ResponseEntity<List<Product>> getAvailableProducts(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = productVersions.catalogETag();
+        if (matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
         List<Product> products = productService.getAvailableProducts();
-        return ResponseEntity.ok(products);
+        return ok(etag, products);
     }
-
+    
     @PatchMapping("/{id}/stock")
     public ResponseEntity<Product> updateStock(@PathVariable Long id, @RequestParam Integer stock) {
         try {
@@ -111,4 +237,92 @@ public class ProductController {
             return ResponseEntity.notFound().build();
         }
     }
+    
+    @PostMapping("/stock/reserve")
+    public ResponseEntity<Map<String, Object>> reserveStock(@RequestBody List<StockAdjustment> adjustments) {
+        String invalid = validate(adjustments);
+        if (invalid != null) {
+            return invalidAdjustments(invalid);
+        }
+        try {
+            productService.reserveStock(adjustments);
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Stock reserved successfully");
+            response.put("lines", adjustments.size());
+            response.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.ok(response);
+        } catch (InsufficientStockException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("productId", e.getProductId());
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            error.put("timestamp", LocalDateTime.now().toString());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
+    
+    @PostMapping("/stock/release")
+    public ResponseEntity<Map<String, Object>> releaseStock(@RequestBody List<StockAdjustment> adjustments) {
+        String invalid = validate(adjustments);
+        if (invalid != null) {
+            return invalidAdjustments(invalid);
+        }
+        productService.releaseStock(adjustments);
+        return ResponseEntity.noContent().build();
+    }
+    
+    //@Valid does not reach the elements of a List body, so each line is checked here
+    private String validate(List<StockAdjustment> adjustments) {
+        for (int i = 0; i < adjustments.size(); i++) {
+            StockAdjustment adjustment = adjustments.get(i);
+            if (adjustment == null) {
+                return "Line " + i + " is empty";
+            }
+            Set<ConstraintViolation<StockAdjustment>> violations = validator.validate(adjustment);
+            if (!violations.isEmpty()) {
+                return "Line " + i + ": " + violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+            }
+        }
+        return null;
+    }
+    
+    private ResponseEntity<Map<String, Object>> invalidAdjustments(String message) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("error", message);
+        error.put("timestamp", LocalDateTime.now().toString());
+        return ResponseEntity.badRequest().body(error);
+    }
+    
+    //true when If-None-Match lists the tag or is *; weak tags compare by value
+    private boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    //the tag covers JSON and CBOR alike, so shared caches must key on Accept as well
+    private <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok().eTag(etag).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+    
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).varyBy(HttpHeaders.ACCEPT).build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.ecommerce.product.dto;
+
+import java.util.List;
+
+//outcome of a bulk product upsert, one entry per input row in input order; feedError is set when the
+//feed could not be read to the end, and rows then covers what was read before it
+public record BulkUpsertResult(
+        long rowsRead,
+        long inserted,
+        long updated,
+        long failed,
+        long durationMs,
+        String feedError,
+        List<RowResult> rows) {
+    
+    public enum Outcome { INSERTED, UPDATED, FAILED }
+    
+    //row is the 1-based array element or NDJSON line
+    public record RowResult(long row, String sku, Outcome outcome, String error) {}
+}
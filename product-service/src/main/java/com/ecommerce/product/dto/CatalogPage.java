@@ -0,0 +1,10 @@
+package com.ecommerce.product.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import com.ecommerce.product.entity.Product;
+
+//one page of catalog results; pass nextCursor back to continue, null on the last page
+public record CatalogPage(List<Product> products, String nextCursor,
+                          Map<String, Integer> categoryCounts, Map<String, Integer> priceBucketCounts) {}
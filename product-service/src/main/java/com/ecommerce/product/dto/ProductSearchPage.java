@@ -0,0 +1,8 @@
+package com.ecommerce.product.dto;
+
+import java.util.List;
+
+import com.ecommerce.product.entity.Product;
+
+//one page of search results, best match first; total counts every match
+public record ProductSearchPage(List<Product> products, int page, int size, int total) {}
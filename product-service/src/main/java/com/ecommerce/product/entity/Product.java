@@ -8,9 +8,11 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -18,13 +20,24 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products",
+    uniqueConstraints = @UniqueConstraint(name = "uk_products_sku", columnNames = "sku"),
+    indexes = {
+        @Index(name = "idx_products_category_price", columnList = "category, price, id"),
+        @Index(name = "idx_products_price", columnList = "price, id"),
+        @Index(name = "idx_products_name", columnList = "name, id")
+    })
 public class Product {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    //supplier stock keeping unit, the natural key for catalog feeds; optional for products created by hand
+    @Size(max = 64, message = "SKU cannot exceed 64 characters")
+    @Column(length = 64)
+    private String sku;
+    
     @NotBlank(message = "Product name is required")
     @Size(min = 2, max = 100, message = "Product name must be between 2 and 100 characters")
     @Column(nullable = false)
@@ -76,6 +89,9 @@ public class Product {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     
+    public String getSku() { return sku; }
+    public void setSku(String sku) { this.sku = sku; }
+    
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
     
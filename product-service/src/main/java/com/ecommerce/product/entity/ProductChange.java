@@ -0,0 +1,57 @@
+package com.ecommerce.product.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Table;
+
+//a committed product change, tailed by other instances to invalidate their caches;
+//a null product id means every product changed
+@Entity
+@Table(name = "product_changes", indexes = @Index(name = "idx_product_changes_created_at", columnList = "created_at"))
+public class ProductChange {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id")
+    private Long productId;
+    
+    //instance that made the change, which skips its own rows
+    @Column(nullable = false, length = 36)
+    private String origin;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    public ProductChange() {}
+    
+    public ProductChange(Long productId, String origin) {
+        this.productId = productId;
+        this.origin = origin;
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    
+    public String getOrigin() { return origin; }
+    public void setOrigin(String origin) { this.origin = origin; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
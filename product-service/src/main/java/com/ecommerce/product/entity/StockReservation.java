@@ -0,0 +1,38 @@
+package com.ecommerce.product.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+//a reservation applied, or released, under the caller's idempotency key; written and read by
+//ProductService through JDBC, mapped here so the table is created with the others
+@Entity
+@Table(name = "stock_reservations", indexes = @Index(name = "idx_stock_reservations_created_at", columnList = "created_at"))
+public class StockReservation {
+    
+    @Id
+    @Column(name = "reservation_id", length = 36)
+    private String reservationId;
+    
+    //true once released, or when a release arrived before the reservation it cancels
+    @Column(columnDefinition = "BOOLEAN NOT NULL DEFAULT FALSE")
+    private boolean released;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    public StockReservation() {}
+    
+    public String getReservationId() { return reservationId; }
+    public void setReservationId(String reservationId) { this.reservationId = reservationId; }
+    
+    public boolean isReleased() { return released; }
+    public void setReleased(boolean released) { this.released = released; }
+    
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.product.event;
+
+import java.util.Collection;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+//single-instance deployments: the writer already invalidated its own cache, so there is no one to tell
+@Component
+@ConditionalOnProperty(name = "product.cache.broadcast", havingValue = "in-process", matchIfMissing = true)
+public class InProcessProductInvalidationBroadcast implements ProductInvalidationBroadcast {
+    
+    @Override
+    public void publish(Collection<Long> productIds) {
+    }
+    
+    @Override
+    public void publishAll() {
+    }
+    
+    @Override
+    public void subscribe(Listener listener) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.product.event;
+
+import java.util.Collection;
+
+//carries product changes between product-service instances so each can drop what it cached
+public interface ProductInvalidationBroadcast {
+    
+    //announce that products changed, after the change is committed
+    void publish(Collection<Long> productIds);
+    
+    //announce a change too large to list, e.g. a bulk import
+    void publishAll();
+    
+    //register a listener for changes made by other instances
+    void subscribe(Listener listener);
+    
+    interface Listener {
+        
+        void invalidate(Collection<Long> productIds);
+        
+        void invalidateAll();
+    }
+}
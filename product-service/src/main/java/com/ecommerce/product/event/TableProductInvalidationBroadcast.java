@@ -0,0 +1,118 @@
+package com.ecommerce.product.event;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.product.entity.ProductChange;
+import com.ecommerce.product.repository.ProductChangeRepository;
+
+//writes each change to the shared product_changes table; every instance tails the table on its own
+@Component
+@ConditionalOnProperty(name = "product.cache.broadcast", havingValue = "table")
+public class TableProductInvalidationBroadcast implements ProductInvalidationBroadcast {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TableProductInvalidationBroadcast.class);
+    
+    private final String origin = UUID.randomUUID().toString();
+    
+    @Autowired
+    private ProductChangeRepository productChangeRepository;
+    
+    @Value("${product.cache.table.batch-size:500}")
+    private int batchSize;
+    
+    //changes larger than this are published as a single "everything changed" row
+    @Value("${product.cache.table.max-ids-per-change:1000}")
+    private int maxIdsPerChange;
+    
+    @Value("${product.cache.table.settle-ms:1000}")
+    private long settleMillis;
+    
+    @Value("${product.cache.table.retention-minutes:60}")
+    private long retentionMinutes;
+    
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    
+    //in-memory position; a restarted instance starts with an empty cache so it can start from the tail
+    private volatile Long lastChangeId;
+    
+    @Override
+    public void publish(Collection<Long> productIds) {
+        if (productIds.size() > maxIdsPerChange) {
+            publishAll();
+            return;
+        }
+        List<ProductChange> changes = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            changes.add(new ProductChange(productId, origin));
+        }
+        productChangeRepository.saveAll(changes);
+    }
+    
+    @Override
+    public void publishAll() {
+        productChangeRepository.save(new ProductChange(null, origin));
+    }
+    
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+    
+    @Scheduled(fixedDelayString = "${product.cache.table.poll-interval-ms:500}")
+    public void poll() {
+        try {
+            if (lastChangeId == null) {
+                lastChangeId = productChangeRepository.findMaxId();
+                return;
+            }
+            LocalDateTime cutoff = LocalDateTime.now().minusNanos(settleMillis * 1_000_000);
+            List<ProductChange> changes;
+            do {
+                changes = productChangeRepository.findBatchAfter(lastChangeId, cutoff, Limit.of(batchSize));
+                deliver(changes);
+                if (!changes.isEmpty()) {
+                    lastChangeId = changes.get(changes.size() - 1).getId();
+                }
+            } while (changes.size() == batchSize);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read product changes: {}", e.getMessage());
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${product.cache.table.cleanup-interval-ms:600000}")
+    public void cleanup() {
+        productChangeRepository.deleteOlderThan(LocalDateTime.now().minusMinutes(retentionMinutes));
+    }
+    
+    private void deliver(List<ProductChange> changes) {
+        List<Long> productIds = new ArrayList<>();
+        for (ProductChange change : changes) {
+            if (origin.equals(change.getOrigin())) {
+                continue;
+            }
+            if (change.getProductId() == null) {
+                listeners.forEach(Listener::invalidateAll);
+                productIds.clear();
+            } else {
+                productIds.add(change.getProductId());
+            }
+        }
+        if (!productIds.isEmpty()) {
+            listeners.forEach(listener -> listener.invalidate(productIds));
+        }
+    }
+}
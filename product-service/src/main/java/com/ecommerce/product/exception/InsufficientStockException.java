@@ -0,0 +1,13 @@
+package com.ecommerce.product.exception;
+
+public class InsufficientStockException extends RuntimeException {
+    
+    private final Long productId;
+    
+    public InsufficientStockException(Long productId) {
+        super("Insufficient stock for product: " + productId);
+        this.productId = productId;
+    }
+    
+    public Long getProductId() { return productId; }
+}
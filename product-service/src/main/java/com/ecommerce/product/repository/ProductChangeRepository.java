@@ -0,0 +1,34 @@
+package com.ecommerce.product.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecommerce.product.entity.ProductChange;
+
+@Repository
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+    
+    //next batch of changes after an offset, skipping rows younger than the cutoff whose
+    //lower-numbered neighbours may still be committing
+    @Query("SELECT c FROM ProductChange c WHERE c.id > :afterId AND c.createdAt < :cutoff ORDER BY c.id")
+    List<ProductChange> findBatchAfter(@Param("afterId") Long afterId,
+                                       @Param("cutoff") LocalDateTime cutoff, Limit limit);
+    
+    //highest change id written so far, 0 when there are none
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM ProductChange c")
+    Long findMaxId();
+    
+    //remove changes every instance has had time to read
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProductChange c WHERE c.createdAt < :olderThan")
+    int deleteOlderThan(@Param("olderThan") LocalDateTime olderThan);
+}
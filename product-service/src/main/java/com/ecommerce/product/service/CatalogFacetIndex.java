@@ -0,0 +1,214 @@
+package com.ecommerce.product.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.product.event.ProductInvalidationBroadcast;
+
+import jakarta.annotation.PostConstruct;
+
+//catalog facet counts kept in memory: products per (category, price bucket, in stock) cell.
+//Built at startup and updated by re-reading only the products that changed, so a catalog page
+//never needs a GROUP BY over the whole table.
+@Component
+public class CatalogFacetIndex implements ProductInvalidationBroadcast.Listener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CatalogFacetIndex.class);
+    
+    private static final String LOAD_SQL = "SELECT id, category, price, stock_quantity FROM products";
+    
+    private static final String LOAD_IDS_SQL =
+        "SELECT id, category, price, stock_quantity FROM products WHERE id IN (:ids)";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    
+    @Autowired
+    private ProductInvalidationBroadcast broadcast;
+    
+    //catalog responses carry facets, so their tag must move once the counts catch up with a change
+    @Autowired
+    private ProductVersions productVersions;
+    
+    //upper bounds of the price buckets; a last open-ended bucket holds everything above
+    @Value("${product.catalog.price-buckets:25,50,100,250,500,1000}")
+    private BigDecimal[] priceBounds;
+    
+    @Value("${product.catalog.refresh-batch-size:500}")
+    private int refreshBatchSize;
+    
+    //cell -> number of products; guarded by this
+    private final Map<Cell, Integer> counts = new HashMap<>();
+    
+    //product id -> the cell it is counted in; guarded by this
+    private final Map<Long, Cell> cells = new HashMap<>();
+    
+    //products changed since the last refresh; guarded by this
+    private final Set<Long> dirty = new LinkedHashSet<>();
+    
+    private List<String> bucketLabels;
+    
+    private volatile boolean ready;
+    
+    @PostConstruct
+    void init() {
+        Arrays.sort(priceBounds);
+        bucketLabels = new ArrayList<>();
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal bound : priceBounds) {
+            bucketLabels.add(lower.toPlainString() + "-" + bound.toPlainString());
+            lower = bound;
+        }
+        bucketLabels.add(lower.toPlainString() + "+");
+        broadcast.subscribe(this);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        Map<Cell, Integer> newCounts = new HashMap<>();
+        Map<Long, Cell> newCells = new HashMap<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            Cell cell = cell(rs.getString("category"), rs.getBigDecimal("price"), rs.getInt("stock_quantity"));
+            newCells.put(rs.getLong("id"), cell);
+            newCounts.merge(cell, 1, Integer::sum);
+        });
+        synchronized (this) {
+            counts.clear();
+            counts.putAll(newCounts);
+            cells.clear();
+            cells.putAll(newCells);
+            ready = true;
+        }
+        productVersions.changed();
+        logger.info("Built catalog facets for {} products", newCells.size());
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    // queue products for a recount; called after their change committed
+    public synchronized void markDirty(Collection<Long> productIds) {
+        dirty.addAll(productIds);
+    }
+    
+    @Override
+    public void invalidate(Collection<Long> productIds) {
+        markDirty(productIds);
+    }
+    
+    @Override
+    public void invalidateAll() {
+        build();
+    }
+    
+    //re-read changed products in batches and move them between cells
+    @Scheduled(fixedDelayString = "${product.catalog.refresh-interval-ms:1000}")
+    public void refreshDirty() {
+        while (true) {
+            List<Long> batch;
+            synchronized (this) {
+                if (dirty.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(Math.min(dirty.size(), refreshBatchSize));
+                Iterator<Long> iterator = dirty.iterator();
+                while (iterator.hasNext() && batch.size() < refreshBatchSize) {
+                    batch.add(iterator.next());
+                    iterator.remove();
+                }
+            }
+            
+            Map<Long, Cell> current = new HashMap<>();
+            namedParameterJdbcTemplate.query(LOAD_IDS_SQL, new MapSqlParameterSource("ids", batch), rs -> {
+                current.put(rs.getLong("id"),
+                        cell(rs.getString("category"), rs.getBigDecimal("price"), rs.getInt("stock_quantity")));
+            });
+            synchronized (this) {
+                for (Long id : batch) {
+                    move(id, current.get(id));
+                }
+            }
+            productVersions.changed();
+        }
+    }
+    
+    // facet counts for the filters; the price range applies at bucket granularity
+    public synchronized Facets facets(String category, BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly) {
+        Map<String, Integer> byCategory = new TreeMap<>();
+        Map<String, Integer> byPrice = new LinkedHashMap<>();
+        bucketLabels.forEach(label -> byPrice.put(label, 0));
+        
+        for (Map.Entry<Cell, Integer> entry : counts.entrySet()) {
+            Cell cell = entry.getKey();
+            if (inStockOnly && !cell.inStock()) {
+                continue;
+            }
+            //each facet ignores its own filter, so the counts show what choosing another value would give
+            if (bucketInRange(cell.bucket(), minPrice, maxPrice) && cell.category() != null) {
+                byCategory.merge(cell.category(), entry.getValue(), Integer::sum);
+            }
+            if (category == null || category.equals(cell.category())) {
+                byPrice.merge(bucketLabels.get(cell.bucket()), entry.getValue(), Integer::sum);
+            }
+        }
+        return new Facets(byCategory, byPrice);
+    }
+    
+    //caller holds the monitor; a null cell means the product is gone
+    private void move(Long id, Cell cell) {
+        Cell previous = cell == null ? cells.remove(id) : cells.put(id, cell);
+        if (previous != null) {
+            counts.computeIfPresent(previous, (c, count) -> count > 1 ? count - 1 : null);
+        }
+        if (cell != null) {
+            counts.merge(cell, 1, Integer::sum);
+        }
+    }
+    
+    private boolean bucketInRange(int bucket, BigDecimal minPrice, BigDecimal maxPrice) {
+        BigDecimal lower = bucket == 0 ? BigDecimal.ZERO : priceBounds[bucket - 1];
+        BigDecimal upper = bucket < priceBounds.length ? priceBounds[bucket] : null;
+        if (maxPrice != null && lower.compareTo(maxPrice) > 0) {
+            return false;
+        }
+        return minPrice == null || upper == null || upper.compareTo(minPrice) > 0;
+    }
+    
+    private Cell cell(String category, BigDecimal price, int stockQuantity) {
+        int bucket = 0;
+        while (bucket < priceBounds.length && price.compareTo(priceBounds[bucket]) >= 0) {
+            bucket++;
+        }
+        return new Cell(category, bucket, stockQuantity > 0);
+    }
+    
+    private record Cell(String category, int bucket, boolean inStock) {}
+    
+    public record Facets(Map<String, Integer> categories, Map<String, Integer> priceBuckets) {}
+}
@@ -0,0 +1,136 @@
+package com.ecommerce.product.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.ecommerce.product.dto.CatalogPage;
+import com.ecommerce.product.entity.Product;
+
+//filtered, sorted catalog pages with keyset cursors; deep pages cost the same as the first one
+@Service
+public class CatalogService {
+    
+    private static final BeanPropertyRowMapper<Product> PRODUCT_MAPPER = new BeanPropertyRowMapper<>(Product.class);
+    
+    public enum Sort {
+        PRICE_ASC("price", false),
+        PRICE_DESC("price", true),
+        NAME("name", false),
+        //ids grow with creation time
+        NEWEST("id", true);
+        
+        private final String column;
+        private final boolean descending;
+        
+        Sort(String column, boolean descending) {
+            this.column = column;
+            this.descending = descending;
+        }
+    }
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private CatalogFacetIndex facetIndex;
+    
+    public CatalogPage query(String category, BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly,
+                             Sort sort, String cursor, int size) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM products WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (category != null) {
+            sql.append(" AND category = ?");
+            args.add(category);
+        }
+        if (minPrice != null) {
+            sql.append(" AND price >= ?");
+            args.add(minPrice);
+        }
+        if (maxPrice != null) {
+            sql.append(" AND price <= ?");
+            args.add(maxPrice);
+        }
+        if (inStockOnly) {
+            sql.append(" AND stock_quantity > 0");
+        }
+        
+        //continue strictly after the last row of the previous page, ties broken by id
+        String comparison = sort.descending ? "<" : ">";
+        if (cursor != null) {
+            Cursor position = decode(cursor, sort);
+            if (sort.column.equals("id")) {
+                sql.append(" AND id ").append(comparison).append(" ?");
+                args.add(position.id());
+            } else {
+                sql.append(" AND (").append(sort.column).append(' ').append(comparison).append(" ? OR (")
+                        .append(sort.column).append(" = ? AND id ").append(comparison).append(" ?))");
+                args.add(position.value());
+                args.add(position.value());
+                args.add(position.id());
+            }
+        }
+        String direction = sort.descending ? " DESC" : " ASC";
+        sql.append(" ORDER BY ").append(sort.column).append(direction);
+        if (!sort.column.equals("id")) {
+            sql.append(", id").append(direction);
+        }
+        //one extra row tells whether there is a next page
+        sql.append(" LIMIT ?");
+        args.add(size + 1);
+        
+        List<Product> products = jdbcTemplate.query(sql.toString(), PRODUCT_MAPPER, args.toArray());
+        String nextCursor = null;
+        if (products.size() > size) {
+            products = products.subList(0, size);
+            nextCursor = encode(products.get(size - 1), sort);
+        }
+        CatalogFacetIndex.Facets facets = facetIndex.facets(category, minPrice, maxPrice, inStockOnly);
+        return new CatalogPage(products, nextCursor, facets.categories(), facets.priceBuckets());
+    }
+    
+    static String encode(Product last, Sort sort) {
+        String value = switch (sort) {
+            case PRICE_ASC, PRICE_DESC -> last.getPrice().toPlainString();
+            case NAME -> last.getName();
+            case NEWEST -> "";
+        };
+        String raw = sort.name() + "|" + value + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    static Cursor decode(String cursor, Sort sort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int first = raw.indexOf('|');
+        int last = raw.lastIndexOf('|');
+        if (first < 0 || first == last || !raw.substring(0, first).equals(sort.name())) {
+            throw new IllegalArgumentException("Cursor does not belong to sort " + sort);
+        }
+        String value = raw.substring(first + 1, last);
+        try {
+            Long id = Long.valueOf(raw.substring(last + 1));
+            Object typed = switch (sort) {
+                case PRICE_ASC, PRICE_DESC -> new BigDecimal(value);
+                case NAME -> value;
+                case NEWEST -> null;
+            };
+            return new Cursor(typed, id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+    
+    record Cursor(Object value, Long id) {}
+}
@@ -0,0 +1,310 @@
+package com.ecommerce.product.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.product.dto.BulkUpsertResult;
+import com.ecommerce.product.dto.BulkUpsertResult.Outcome;
+import com.ecommerce.product.dto.BulkUpsertResult.RowResult;
+import com.ecommerce.product.entity.Product;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+//upserts supplier catalog feeds by SKU from a streamed JSON array or NDJSON body, one JDBC batch at a
+//time; caches, search index and facets are refreshed once per batch rather than once per product
+@Service
+public class ProductBulkUpsertService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductBulkUpsertService.class);
+    
+    public enum Format { JSON, NDJSON }
+    
+    private static final String UPSERT_SQL =
+        "INSERT INTO products (sku, name, description, price, stock_quantity, category, created_at, updated_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?) AS incoming "
+        + "ON DUPLICATE KEY UPDATE name = incoming.name, description = incoming.description, price = incoming.price, "
+        + "stock_quantity = incoming.stock_quantity, category = incoming.category, updated_at = incoming.updated_at";
+    
+    //locks the batch's SKUs, present or not, until the upsert commits, so a concurrent feed cannot change
+    //whether a row is an insert or an update in between; feeds racing on the same new SKUs may deadlock,
+    //which fails that batch like any other write error
+    private static final String EXISTING_SKUS_SQL = "SELECT sku FROM products WHERE sku IN (:skus) FOR UPDATE";
+    
+    private static final String LOAD_BY_SKUS_SQL = "SELECT * FROM products WHERE sku IN (:skus)";
+    
+    private static final BeanPropertyRowMapper<Product> PRODUCT_MAPPER = new BeanPropertyRowMapper<>(Product.class);
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private Validator validator;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${product.bulk.batch-size:500}")
+    private int batchSize;
+    
+    private Counter insertedCounter;
+    private Counter updatedCounter;
+    private Counter failedCounter;
+    
+    @PostConstruct
+    void init() {
+        insertedCounter = meterRegistry.counter("product.bulk.rows", "outcome", "inserted");
+        updatedCounter = meterRegistry.counter("product.bulk.rows", "outcome", "updated");
+        failedCounter = meterRegistry.counter("product.bulk.rows", "outcome", "failed");
+    }
+    
+    public BulkUpsertResult upsert(InputStream body, Format format) throws IOException {
+        long started = System.nanoTime();
+        List<RowResult> results = new ArrayList<>();
+        List<Row> batch = new ArrayList<>(batchSize);
+        long rowsRead = 0;
+        String feedError = null;
+        
+        RowSource source = format == Format.NDJSON ? new NdjsonRowSource(body) : new JsonArrayRowSource(body);
+        try {
+            while (true) {
+                Row row;
+                try {
+                    row = source.next();
+                } catch (IOException e) {
+                    //a syntax error or broken stream ends the feed; the rows read before it are still written
+                    feedError = "Feed unreadable after row " + rowsRead + ": "
+                            + (e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage());
+                    break;
+                }
+                if (row == null) {
+                    break;
+                }
+                rowsRead++;
+                String error = row.error() != null ? row.error() : validate(row.product());
+                if (error != null) {
+                    results.add(new RowResult(row.number(), row.product() != null ? row.product().getSku() : null,
+                            Outcome.FAILED, error));
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    writeBatch(batch, results);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch, results);
+            }
+        } finally {
+            source.close();
+        }
+        
+        results.sort(Comparator.comparingLong(RowResult::row));
+        long inserted = results.stream().filter(result -> result.outcome() == Outcome.INSERTED).count();
+        long updated = results.stream().filter(result -> result.outcome() == Outcome.UPDATED).count();
+        long failed = results.size() - inserted - updated;
+        insertedCounter.increment(inserted);
+        updatedCounter.increment(updated);
+        failedCounter.increment(failed);
+        
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        logger.info("Bulk upsert of {} rows: {} inserted, {} updated, {} failed in {} ms",
+                rowsRead, inserted, updated, failed, durationMs);
+        if (feedError != null) {
+            logger.warn("Bulk upsert stopped early: {}", feedError);
+        }
+        return new BulkUpsertResult(rowsRead, inserted, updated, failed, durationMs, feedError, results);
+    }
+    
+    private void writeBatch(List<Row> batch, List<RowResult> results) {
+        List<String> skus = batch.stream().map(row -> row.product().getSku()).distinct().toList();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            Product product = row.product();
+            args.add(new Object[] { product.getSku(), product.getName(), product.getDescription(), product.getPrice(),
+                    product.getStockQuantity(), product.getCategory(), now, now });
+        }
+        try {
+            //SKUs compare case-insensitively in MySQL, so they do here too
+            Set<String> known = transactionTemplate.execute(status -> {
+                Set<String> existing = namedParameterJdbcTemplate
+                        .queryForList(EXISTING_SKUS_SQL, new MapSqlParameterSource("skus", skus), String.class)
+                        .stream().map(this::key).collect(Collectors.toCollection(HashSet::new));
+                jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+                return existing;
+            });
+            
+            //a later row for the same SKU updates what an earlier row inserted
+            for (Row row : batch) {
+                boolean existed = !known.add(key(row.product().getSku()));
+                results.add(new RowResult(row.number(), row.product().getSku(),
+                        existed ? Outcome.UPDATED : Outcome.INSERTED, null));
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to write bulk upsert batch of {} rows", batch.size(), e);
+            for (Row row : batch) {
+                results.add(new RowResult(row.number(), row.product().getSku(), Outcome.FAILED,
+                        "Write failed: " + e.getMessage()));
+            }
+            return;
+        }
+        
+        List<Product> written = namedParameterJdbcTemplate.query(LOAD_BY_SKUS_SQL,
+                new MapSqlParameterSource("skus", skus), PRODUCT_MAPPER);
+        productService.productsUpserted(written);
+    }
+    
+    private String validate(Product product) {
+        if (product.getSku() == null || product.getSku().isBlank()) {
+            return "sku: SKU is required";
+        }
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+    
+    private String key(String sku) {
+        return sku.toLowerCase(Locale.ROOT);
+    }
+    
+    //feeds name products by SKU; ids and timestamps in the input are ignored
+    private Product toProduct(JsonNode node) throws IOException {
+        Product product = objectMapper.treeToValue(node, Product.class);
+        product.setId(null);
+        if (product.getSku() != null) {
+            product.setSku(product.getSku().trim());
+        }
+        return product;
+    }
+    
+    private record Row(long number, Product product, String error) {}
+    
+    private interface RowSource {
+        //next row of the feed, or null at end of input
+        Row next() throws IOException;
+        
+        void close() throws IOException;
+    }
+    
+    //one JSON array of products, read an element at a time
+    private class JsonArrayRowSource implements RowSource {
+        
+        private final JsonParser parser;
+        private long number;
+        
+        JsonArrayRowSource(InputStream body) throws IOException {
+            this.parser = objectMapper.getFactory().createParser(body);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of products");
+            }
+        }
+        
+        @Override
+        public Row next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            number++;
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return new Row(number, null, "Expected a product object");
+            }
+            //a syntax error ends the feed; a value that does not map to a product only fails its row
+            JsonNode node = parser.readValueAsTree();
+            try {
+                return new Row(number, toProduct(node), null);
+            } catch (IOException e) {
+                return new Row(number, null, "Invalid product: " + e.getMessage());
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+    
+    //one JSON product per line
+    private class NdjsonRowSource implements RowSource {
+        
+        private final BufferedReader reader;
+        private long lineNumber;
+        
+        NdjsonRowSource(InputStream body) {
+            this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        }
+        
+        @Override
+        public Row next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    return new Row(lineNumber, toProduct(objectMapper.readTree(line)), null);
+                } catch (IOException e) {
+                    return new Row(lineNumber, null, "Invalid JSON: " + e.getMessage());
+                }
+            }
+            return null;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.ecommerce.product.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductInvalidationBroadcast;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+//products by id, bounded by entry count and TTL; writers invalidate synchronously and other
+//instances hear about it through the invalidation broadcast. Entries are copies, so callers may
+//modify what they get back without touching the cache.
+@Component
+public class ProductCache implements ProductInvalidationBroadcast.Listener {
+    
+    @Autowired
+    private ProductInvalidationBroadcast broadcast;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${product.cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${product.cache.max-size:50000}")
+    private int maxSize;
+    
+    //upper bound on staleness if a broadcast is missed
+    @Value("${product.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    //least recently used first; guarded by its own monitor
+    private LinkedHashMap<Long, Entry> entries;
+    
+    //bumped by every invalidation so a load that raced with a write is not cached
+    private long generation;
+    
+    private Counter hits;
+    private Counter misses;
+    private Counter sizeEvictions;
+    private Counter invalidations;
+    private Timer loadTimer;
+    
+    @PostConstruct
+    void init() {
+        entries = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        hits = meterRegistry.counter("product.cache.requests", "result", "hit");
+        misses = meterRegistry.counter("product.cache.requests", "result", "miss");
+        sizeEvictions = meterRegistry.counter("product.cache.evictions", "cause", "size");
+        invalidations = meterRegistry.counter("product.cache.invalidations");
+        loadTimer = Timer.builder("product.cache.load")
+                .description("Time to load cache misses from the database")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("product.cache.size", this, cache -> cache.size()).register(meterRegistry);
+        Gauge.builder("product.cache.hit-ratio", this, cache -> cache.hitRatio()).register(meterRegistry);
+        broadcast.subscribe(this);
+    }
+    
+    // cached product, loading and caching it on a miss; null when the product does not exist
+    public Product get(Long id, Supplier<Product> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        long loadGeneration;
+        synchronized (entries) {
+            Product cached = lookup(id);
+            if (cached != null) {
+                hits.increment();
+                return copy(cached);
+            }
+            loadGeneration = generation;
+        }
+        
+        misses.increment();
+        Product product = loadTimer.record(loader);
+        if (product != null) {
+            store(List.of(product), loadGeneration);
+        }
+        return product;
+    }
+    
+    // cached products for the ids, loading only the missing ones in one call
+    public List<Product> getAll(Collection<Long> ids, Function<List<Long>, List<Product>> loader) {
+        if (!enabled) {
+            return loader.apply(new ArrayList<>(ids));
+        }
+        List<Product> products = new ArrayList<>(ids.size());
+        List<Long> missing = new ArrayList<>();
+        long loadGeneration;
+        synchronized (entries) {
+            for (Long id : ids) {
+                Product cached = lookup(id);
+                if (cached != null) {
+                    products.add(copy(cached));
+                } else {
+                    missing.add(id);
+                }
+            }
+            loadGeneration = generation;
+        }
+        hits.increment(products.size());
+        if (missing.isEmpty()) {
+            return products;
+        }
+        
+        misses.increment(missing.size());
+        List<Product> loaded = loadTimer.record(() -> loader.apply(missing));
+        store(loaded, loadGeneration);
+        products.addAll(loaded);
+        return products;
+    }
+    
+    // cached product without copying or counting a request, null when absent or expired; must not be modified
+    public Product peek(Long id) {
+        if (!enabled) {
+            return null;
+        }
+        synchronized (entries) {
+            return lookup(id);
+        }
+    }
+    
+    // drop products now and again once the surrounding transaction commits, then tell other instances
+    public void evictOnCommit(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(productIds);
+        invalidations.increment();
+        invalidate(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(ids);
+                    broadcast.publish(ids);
+                }
+            });
+        } else {
+            broadcast.publish(ids);
+        }
+    }
+    
+    // drop everything, e.g. after a bulk write, and tell other instances
+    public void evictAllOnCommit() {
+        invalidations.increment();
+        invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateAll();
+                    broadcast.publishAll();
+                }
+            });
+        } else {
+            broadcast.publishAll();
+        }
+    }
+    
+    @Override
+    public void invalidate(Collection<Long> productIds) {
+        synchronized (entries) {
+            generation++;
+            productIds.forEach(entries::remove);
+        }
+    }
+    
+    @Override
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+        }
+    }
+    
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+    
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+    
+    //caller holds the monitor; expired entries are dropped on access
+    private Product lookup(Long id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            entries.remove(id);
+            return null;
+        }
+        return entry.product();
+    }
+    
+    private void store(List<Product> products, long loadGeneration) {
+        long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds);
+        synchronized (entries) {
+            if (generation != loadGeneration) {
+                return;
+            }
+            for (Product product : products) {
+                entries.put(product.getId(), new Entry(copy(product), expiresAt));
+            }
+        }
+    }
+    
+    private static Product copy(Product product) {
+        Product copy = new Product(product.getName(), product.getDescription(), product.getPrice(),
+                product.getStockQuantity(), product.getCategory());
+        copy.setId(product.getId());
+        copy.setSku(product.getSku());
+        copy.setCreatedAt(product.getCreatedAt());
+        copy.setUpdatedAt(product.getUpdatedAt());
+        return copy;
+    }
+    
+    private record Entry(Product product, long expiresAtNanos) {
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos > 0;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.ecommerce.product.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductInvalidationBroadcast;
+import com.ecommerce.product.repository.ProductRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+//in-memory inverted index over product name, category and description. Terms are lowercased
+//alphanumeric runs; the last query term also matches as a prefix, for type-ahead.
+//Built once at startup, then kept current by ProductService writes and by changes other instances broadcast.
+@Component
+public class ProductSearchIndex implements ProductInvalidationBroadcast.Listener {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+    
+    //a hit in the name counts more than one in the category, which counts more than the description
+    private static final int NAME_WEIGHT = 4;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    
+    private static final String LOAD_SQL = "SELECT id, name, category, description FROM products";
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ProductInvalidationBroadcast broadcast;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    //term -> product id -> weight; sorted so prefixes are a range scan
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    
+    //product id -> its terms and weights, to unindex a product before reindexing it
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+    
+    private volatile boolean ready;
+    
+    private Timer queryTimer;
+    
+    @PostConstruct
+    void init() {
+        queryTimer = Timer.builder("product.search.query")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("product.search.documents", this, index -> index.size()).register(meterRegistry);
+        Gauge.builder("product.search.terms", this, index -> index.termCount()).register(meterRegistry);
+        broadcast.subscribe(this);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            //streamed row by row so a large catalog is never held as entities
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                index(rs.getLong("id"), rs.getString("name"), rs.getString("category"), rs.getString("description"));
+            });
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Indexed {} products in {} ms", size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    // product ids matching every query term, best match first
+    public SearchHits search(String query, int offset, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new SearchHits(List.of(), 0);
+        }
+        return queryTimer.record(() -> {
+            lock.readLock().lock();
+            try {
+                Map<Long, Integer> scores = null;
+                for (int i = 0; i < terms.size(); i++) {
+                    boolean prefix = i == terms.size() - 1;
+                    Map<Long, Integer> termScores = match(terms.get(i), prefix);
+                    scores = scores == null ? termScores : intersect(scores, termScores);
+                    if (scores.isEmpty()) {
+                        return new SearchHits(List.of(), 0);
+                    }
+                }
+                List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(scores.entrySet());
+                ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()));
+                
+                List<Long> ids = new ArrayList<>();
+                for (int i = offset; i < ranked.size() && ids.size() < limit; i++) {
+                    ids.add(ranked.get(i).getKey());
+                }
+                return new SearchHits(ids, ranked.size());
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+    
+    public void update(Product product) {
+        lock.writeLock().lock();
+        try {
+            unindex(product.getId());
+            index(product.getId(), product.getName(), product.getCategory(), product.getDescription());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void updateAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                unindex(product.getId());
+                index(product.getId(), product.getName(), product.getCategory(), product.getDescription());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            unindex(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    //changes made by other instances; reread the products, anything not found was deleted
+    @Override
+    public void invalidate(Collection<Long> productIds) {
+        List<Product> products = productRepository.findAllById(productIds);
+        Set<Long> missing = new HashSet<>(productIds);
+        lock.writeLock().lock();
+        try {
+            for (Product product : products) {
+                missing.remove(product.getId());
+                unindex(product.getId());
+                index(product.getId(), product.getName(), product.getCategory(), product.getDescription());
+            }
+            missing.forEach(this::unindex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @Override
+    public void invalidateAll() {
+        build();
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    private int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    //best weight per product for the term, or for any term starting with it; exact matches rank first
+    private Map<Long, Integer> match(String term, boolean prefix) {
+        Map<Long, Integer> scores = new HashMap<>();
+        Map<Long, Integer> exact = postings.get(term);
+        if (exact != null) {
+            exact.forEach((id, weight) -> scores.put(id, weight * 2));
+        }
+        if (prefix) {
+            for (Map<Long, Integer> expansion : postings.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+                expansion.forEach((id, weight) -> scores.merge(id, weight, Math::max));
+            }
+        }
+        return scores;
+    }
+    
+    private Map<Long, Integer> intersect(Map<Long, Integer> scores, Map<Long, Integer> termScores) {
+        Map<Long, Integer> smaller = scores.size() <= termScores.size() ? scores : termScores;
+        Map<Long, Integer> larger = smaller == scores ? termScores : scores;
+        Map<Long, Integer> result = new HashMap<>();
+        smaller.forEach((id, score) -> {
+            Integer other = larger.get(id);
+            if (other != null) {
+                result.put(id, score + other);
+            }
+        });
+        return result;
+    }
+    
+    //caller holds the write lock
+    private void index(Long id, String name, String category, String description) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, name, NAME_WEIGHT);
+        addTerms(terms, category, CATEGORY_WEIGHT);
+        addTerms(terms, description, DESCRIPTION_WEIGHT);
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+        documents.put(id, terms);
+    }
+    
+    //caller holds the write lock
+    private void unindex(Long id) {
+        Map<String, Integer> terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            Map<Long, Integer> ids = postings.get(term);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+    
+    private void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String term : tokenize(text)) {
+            terms.merge(term, weight, Integer::sum);
+        }
+    }
+    
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+    
+    public record SearchHits(List<Long> productIds, int total) {}
+}
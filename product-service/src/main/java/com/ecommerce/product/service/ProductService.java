@@ -1,12 +1,28 @@
 package com.ecommerce.product.service;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.ecommerce.product.dto.ProductSearchPage;
+import com.ecommerce.product.dto.StockAdjustment;
 import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.exception.InsufficientStockException;
 import com.ecommerce.product.repository.ProductRepository;
 
 import jakarta.transaction.Transactional;
@@ -14,12 +30,50 @@ import jakarta.transaction.Transactional;
 @Service
 public class ProductService {
     
+    private static final String RESERVE_STOCK_SQL =
+        "UPDATE products SET stock_quantity = stock_quantity - ?, updated_at = ? WHERE id = ? AND stock_quantity >= ?";
+    
+    private static final String RELEASE_STOCK_SQL =
+        "UPDATE products SET stock_quantity = stock_quantity + ?, updated_at = ? WHERE id = ?";
+    
+    //0 rows when the key was seen before, by an earlier attempt or by a release that overtook it
+    private static final String INSERT_RESERVATION_SQL =
+        "INSERT IGNORE INTO stock_reservations (reservation_id, released, created_at) VALUES (?, ?, ?)";
+    
+    private static final String MARK_RESERVATION_RELEASED_SQL =
+        "UPDATE stock_reservations SET released = TRUE WHERE reservation_id = ? AND released = FALSE";
+    
+    private static final String DELETE_OLD_RESERVATIONS_SQL =
+        "DELETE FROM stock_reservations WHERE created_at < ?";
+    
     @Autowired
     private ProductRepository productRepository;
     
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private CatalogFacetIndex catalogFacetIndex;
+    
+    @Autowired
+    private ProductVersions productVersions;
+    
+    //how long a reservation key is remembered; a retry or release must arrive within it
+    @Value("${product.stock.reservation-retention-days:30}")
+    private long reservationRetentionDays;
+    
     // create or update product
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productsChanged(List.of(saved.getId()));
+        searchIndex.update(saved);
+        return saved;
     }
     
     // get all products
@@ -27,9 +81,14 @@ public class ProductService {
         return productRepository.findAll();
     }
     
-    // get product by ID
+    // get product by ID, served from the cache when possible
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return Optional.ofNullable(productCache.get(id, () -> productRepository.findById(id).orElse(null)));
+    }
+    
+    // get products by a list of IDs, loading cache misses in a single query
+    public List<Product> getProductsByIds(List<Long> ids) {
+        return productCache.getAll(ids, productRepository::findAllById);
     }
     
     // delete product
@@ -37,6 +96,8 @@ public class ProductService {
     public void deleteProduct(Long id) {
         if (productRepository.existsById(id)) {
             productRepository.deleteById(id);
+            productsChanged(List.of(id));
+            afterCommit(() -> searchIndex.remove(id));
         } else {
             throw new RuntimeException("Product not found with id: " + id);
         }
@@ -52,6 +113,31 @@ public class ProductService {
         return productRepository.findByNameContainingIgnoreCase(name);
     }
     
+    // relevance-ranked search over name, category and description; SQL name match until the index is built
+    public ProductSearchPage searchProducts(String query, int page, int size) {
+        if (!searchIndex.isReady()) {
+            List<Product> matches = searchProductsByName(query);
+            int from = Math.min(page * size, matches.size());
+            return new ProductSearchPage(matches.subList(from, Math.min(from + size, matches.size())),
+                    page, size, matches.size());
+        }
+        ProductSearchIndex.SearchHits hits = searchIndex.search(query, page * size, size);
+        
+        //keep the ranking; ids whose product was deleted in the meantime drop out
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : getProductsByIds(hits.productIds())) {
+            byId.put(product.getId(), product);
+        }
+        List<Product> products = new ArrayList<>(hits.productIds().size());
+        for (Long id : hits.productIds()) {
+            Product product = byId.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return new ProductSearchPage(products, page, size, hits.total());
+    }
+    
     // get available products
     public List<Product> getAvailableProducts() {
         return productRepository.findProductsWithStock(0);
@@ -63,8 +149,150 @@ public class ProductService {
         if (productOpt.isPresent()) {
             Product product = productOpt.get();
             product.setStockQuantity(newStock);
-            return productRepository.save(product);
+            Product saved = productRepository.save(product);
+            productsChanged(List.of(productId));
+            return saved;
         }
         throw new RuntimeException("Product not found with id: " + productId);
     }
+    
+    // reserve stock for every line of an order in one batch, all or nothing, at most once per reservation ID
+    @Transactional
+    public void reserveStock(List<StockAdjustment> adjustments) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String reservationId = reservationId(adjustments);
+        if (reservationId != null && jdbcTemplate.update(INSERT_RESERVATION_SQL, reservationId, false, now) == 0) {
+            //a retry of a reservation already applied, or one already released; either way nothing to take
+            return;
+        }
+        
+        List<StockAdjustment> lines = mergeByProduct(adjustments);
+        List<Object[]> args = new ArrayList<>();
+        for (StockAdjustment line : lines) {
+            args.add(new Object[] { line.getQuantity(), now, line.getProductId(), line.getQuantity() });
+        }
+        
+        //a line that matched no row means the product is missing or short, so roll back the whole batch,
+        //including the reservation key, so the order can try again
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_STOCK_SQL, args);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new InsufficientStockException(lines.get(i).getProductId());
+            }
+        }
+        productsChanged(productIds(lines));
+    }
+    
+    // give reserved stock back, e.g. when an order could not be saved or was cancelled;
+    // lines of a reservation that was already released, or never applied, are skipped
+    @Transactional
+    public void releaseStock(List<StockAdjustment> adjustments) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        
+        Map<String, Boolean> claimed = new HashMap<>();
+        List<StockAdjustment> releasable = new ArrayList<>();
+        for (StockAdjustment adjustment : adjustments) {
+            String reservationId = adjustment.getReservationId();
+            if (reservationId == null || claimed.computeIfAbsent(reservationId, id -> claimRelease(id, now))) {
+                releasable.add(adjustment);
+            }
+        }
+        if (releasable.isEmpty()) {
+            return;
+        }
+        
+        List<StockAdjustment> lines = mergeByProduct(releasable);
+        List<Object[]> args = new ArrayList<>();
+        for (StockAdjustment line : lines) {
+            args.add(new Object[] { line.getQuantity(), now, line.getProductId() });
+        }
+        jdbcTemplate.batchUpdate(RELEASE_STOCK_SQL, args);
+        productsChanged(productIds(lines));
+    }
+    
+    // forget reservation keys old enough that no retry or release can still arrive for them
+    @Scheduled(fixedDelayString = "${product.stock.reservation-cleanup-interval-ms:3600000}")
+    public void purgeReservations() {
+        jdbcTemplate.update(DELETE_OLD_RESERVATIONS_SQL,
+                Timestamp.valueOf(LocalDateTime.now().minusDays(reservationRetentionDays)));
+    }
+    
+    //true when this call moved the reservation to released; an unknown key gets a released row so
+    //a reservation still in flight is not applied after its release
+    private boolean claimRelease(String reservationId, Timestamp now) {
+        if (jdbcTemplate.update(MARK_RESERVATION_RELEASED_SQL, reservationId) == 1) {
+            return true;
+        }
+        if (jdbcTemplate.update(INSERT_RESERVATION_SQL, reservationId, true, now) == 1) {
+            return false;
+        }
+        //the reservation committed between the two statements
+        return jdbcTemplate.update(MARK_RESERVATION_RELEASED_SQL, reservationId) == 1;
+    }
+    
+    //the one key a reservation is made under, null for callers that send none
+    private String reservationId(List<StockAdjustment> adjustments) {
+        Set<String> ids = new TreeSet<>();
+        for (StockAdjustment adjustment : adjustments) {
+            if (adjustment.getReservationId() != null) {
+                ids.add(adjustment.getReservationId());
+            }
+        }
+        if (ids.size() > 1) {
+            throw new IllegalArgumentException("All lines of a reservation must share one reservation ID");
+        }
+        return ids.isEmpty() ? null : ids.iterator().next();
+    }
+    
+    private List<Long> productIds(List<StockAdjustment> lines) {
+        List<Long> ids = new ArrayList<>(lines.size());
+        for (StockAdjustment line : lines) {
+            ids.add(line.getProductId());
+        }
+        return ids;
+    }
+    
+    // refresh caches, search index and facets once for a whole batch of upserted products
+    public void productsUpserted(List<Product> products) {
+        List<Long> ids = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        productsChanged(ids);
+        searchIndex.updateAll(products);
+    }
+    
+    //drop cached copies, recount facets and move the catalog version for products whose rows changed
+    private void productsChanged(List<Long> productIds) {
+        productCache.evictOnCommit(productIds);
+        afterCommit(() -> {
+            catalogFacetIndex.markDirty(productIds);
+            productVersions.changed();
+        });
+    }
+    
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    //sum duplicate lines and sort by product ID so concurrent reservations lock rows in the same order
+    private List<StockAdjustment> mergeByProduct(List<StockAdjustment> adjustments) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockAdjustment adjustment : adjustments) {
+            quantities.merge(adjustment.getProductId(), adjustment.getQuantity(), Integer::sum);
+        }
+        
+        List<StockAdjustment> lines = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> lines.add(new StockAdjustment(productId, quantity)));
+        return lines;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.ecommerce.product.service;
+
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.ProductInvalidationBroadcast;
+
+import jakarta.annotation.PostConstruct;
+
+//entity tags for product responses. A product's tag comes from its updatedAt; list responses share
+//a catalog version that moves on every committed product change, local or broadcast, and whenever
+//the facet counts catch up, so a conditional GET can be answered without reading the database.
+//A change this instance never hears of, e.g. from another instance under the in-process broadcast,
+//is bounded like the product cache: the catalog tag also rolls over every cache TTL.
+@Component
+public class ProductVersions implements ProductInvalidationBroadcast.Listener {
+    
+    @Autowired
+    private ProductInvalidationBroadcast broadcast;
+    
+    @Autowired
+    private ProductCache productCache;
+    
+    @Value("${product.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+    
+    //random per start, so a restarted instance never repeats a tag it handed out for other data
+    private final long epoch = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+    
+    private final AtomicLong catalogVersion = new AtomicLong();
+    
+    @PostConstruct
+    void init() {
+        broadcast.subscribe(this);
+    }
+    
+    public String catalogETag() {
+        long period = System.currentTimeMillis() / TimeUnit.SECONDS.toMillis(Math.max(1, ttlSeconds));
+        return "\"c" + Long.toString(epoch, 36) + "-" + catalogVersion.get() + "-" + period + "\"";
+    }
+    
+    public String productETag(Product product) {
+        long micros = 0;
+        if (product.getUpdatedAt() != null) {
+            micros = product.getUpdatedAt().toEpochSecond(ZoneOffset.UTC) * 1_000_000
+                    + product.getUpdatedAt().getNano() / 1_000;
+        }
+        return "\"p" + product.getId() + "-" + micros + "\"";
+    }
+    
+    // tag of the cached copy of a product, null when it is not cached
+    public String cachedProductETag(Long id) {
+        Product cached = productCache.peek(id);
+        return cached != null ? productETag(cached) : null;
+    }
+    
+    // called after a product change commits, and again once the facet counts include it
+    public void changed() {
+        catalogVersion.incrementAndGet();
+    }
+    
+    @Override
+    public void invalidate(Collection<Long> productIds) {
+        changed();
+    }
+    
+    @Override
+    public void invalidateAll() {
+        changed();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ecommerce.product.controller;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.ecommerce.product.service.ProductService;
+
+import jakarta.validation.Validation;
+
+class ProductControllerStockTest {
+    
+    private final ProductService productService = mock(ProductService.class);
+    private MockMvc mockMvc;
+    
+    @BeforeEach
+    void setUp() {
+        ProductController controller = new ProductController();
+        ReflectionTestUtils.setField(controller, "productService", productService);
+        ReflectionTestUtils.setField(controller, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+    
+    @Test
+    void rejectsAReservationLineWithoutAProduct() throws Exception {
+        mockMvc.perform(post("/api/products/stock/reserve").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productId\":1,\"quantity\":1},{\"quantity\":1}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Line 1: productId: Product ID is required"));
+        
+        verify(productService, never()).reserveStock(anyList());
+    }
+    
+    @Test
+    void rejectsAReleaseLineWithoutAQuantity() throws Exception {
+        mockMvc.perform(post("/api/products/stock/release").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productId\":1}]"))
+                .andExpect(status().isBadRequest());
+        
+        verify(productService, never()).releaseStock(anyList());
+    }
+    
+    @Test
+    void rejectsAnEmptyLine() throws Exception {
+        mockMvc.perform(post("/api/products/stock/reserve").contentType(MediaType.APPLICATION_JSON)
+                        .content("[null]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Line 0 is empty"));
+    }
+    
+    @Test
+    void reservesValidLines() throws Exception {
+        mockMvc.perform(post("/api/products/stock/reserve").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"productId\":1,\"quantity\":2,\"reservationId\":\"r-1\"}]"))
+                .andExpect(status().isOk());
+        
+        verify(productService).reserveStock(anyList());
+    }
+}
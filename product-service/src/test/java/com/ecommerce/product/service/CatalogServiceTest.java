@@ -0,0 +1,146 @@
+package com.ecommerce.product.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecommerce.product.dto.CatalogPage;
+import com.ecommerce.product.entity.Product;
+
+class CatalogServiceTest {
+    
+    @Test
+    void roundTripsPriceCursors() {
+        String cursor = CatalogService.encode(product(7L, "Lamp", "19.90"), CatalogService.Sort.PRICE_DESC);
+        
+        CatalogService.Cursor position = CatalogService.decode(cursor, CatalogService.Sort.PRICE_DESC);
+        assertEquals(new BigDecimal("19.90"), position.value());
+        assertEquals(7L, position.id().longValue());
+    }
+    
+    @Test
+    void roundTripsNamesContainingTheSeparator() {
+        String cursor = CatalogService.encode(product(3L, "Cable | 2m", "5.00"), CatalogService.Sort.NAME);
+        
+        CatalogService.Cursor position = CatalogService.decode(cursor, CatalogService.Sort.NAME);
+        assertEquals("Cable | 2m", position.value());
+        assertEquals(3L, position.id().longValue());
+    }
+    
+    @Test
+    void newestCursorsCarryOnlyTheId() {
+        String cursor = CatalogService.encode(product(42L, "Desk", "99.00"), CatalogService.Sort.NEWEST);
+        
+        CatalogService.Cursor position = CatalogService.decode(cursor, CatalogService.Sort.NEWEST);
+        assertNull(position.value());
+        assertEquals(42L, position.id().longValue());
+    }
+    
+    @Test
+    void producesUrlSafeCursors() {
+        String cursor = CatalogService.encode(product(1L, "??>>??", "1.00"), CatalogService.Sort.NAME);
+        
+        assertTrue(cursor.chars().allMatch(c -> Character.isLetterOrDigit(c) || c == '-' || c == '_'));
+    }
+    
+    @Test
+    void rejectsCursorsFromAnotherSort() {
+        String cursor = CatalogService.encode(product(1L, "Lamp", "19.90"), CatalogService.Sort.PRICE_ASC);
+        
+        assertThrows(IllegalArgumentException.class, () -> CatalogService.decode(cursor, CatalogService.Sort.PRICE_DESC));
+    }
+    
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> CatalogService.decode("not base64!", CatalogService.Sort.NAME));
+        assertThrows(IllegalArgumentException.class, () -> CatalogService.decode(raw("NAME|Lamp"), CatalogService.Sort.NAME));
+        assertThrows(IllegalArgumentException.class, () -> CatalogService.decode(raw("NAME|Lamp|x"), CatalogService.Sort.NAME));
+        assertThrows(IllegalArgumentException.class, () -> CatalogService.decode(raw("PRICE_ASC|cheap|1"), CatalogService.Sort.PRICE_ASC));
+    }
+    
+    @Test
+    void continuesAfterTheCursorRowAndHandsOutTheNextOne() {
+        FakeJdbcTemplate jdbcTemplate = new FakeJdbcTemplate(List.of(
+                product(5L, "Lamp", "10.00"), product(6L, "Lamp", "10.00"), product(2L, "Rug", "12.00")));
+        CatalogService service = service(jdbcTemplate);
+        String cursor = CatalogService.encode(product(4L, "Lamp", "10.00"), CatalogService.Sort.PRICE_ASC);
+        
+        CatalogPage page = service.query(null, null, null, false, CatalogService.Sort.PRICE_ASC, cursor, 2);
+        
+        assertTrue(jdbcTemplate.sql.contains("AND (price > ? OR (price = ? AND id > ?))"));
+        assertTrue(jdbcTemplate.sql.endsWith("ORDER BY price ASC, id ASC LIMIT ?"));
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("10.00"), 4L, 3), jdbcTemplate.args);
+        assertEquals(2, page.products().size());
+        CatalogService.Cursor next = CatalogService.decode(page.nextCursor(), CatalogService.Sort.PRICE_ASC);
+        assertEquals(6L, next.id().longValue());
+    }
+    
+    @Test
+    void endsOnAShortPage() {
+        CatalogService service = service(new FakeJdbcTemplate(List.of(product(1L, "Lamp", "10.00"))));
+        
+        CatalogPage page = service.query(null, null, null, false, CatalogService.Sort.NEWEST, null, 2);
+        
+        assertEquals(1, page.products().size());
+        assertNull(page.nextCursor());
+    }
+    
+    private static CatalogService service(JdbcTemplate jdbcTemplate) {
+        CatalogService service = new CatalogService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "facetIndex", new CatalogFacetIndex() {
+            @Override
+            public synchronized Facets facets(String category, BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly) {
+                return new Facets(Map.of(), Map.of());
+            }
+        });
+        return service;
+    }
+    
+    private static Product product(Long id, String name, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+    
+    private static String raw(String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    
+    //returns canned rows and remembers the last statement
+    private static class FakeJdbcTemplate extends JdbcTemplate {
+        
+        private final List<Product> rows;
+        private String sql;
+        private List<Object> args;
+        
+        FakeJdbcTemplate(List<Product> rows) {
+            this.rows = rows;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            this.sql = sql;
+            this.args = Arrays.asList(args);
+            return (List<T>) new ArrayList<>(rows);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.ecommerce.product.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.ecommerce.product.dto.BulkUpsertResult;
+import com.ecommerce.product.dto.BulkUpsertResult.Outcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+
+class ProductBulkUpsertServiceTest {
+    
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private ProductBulkUpsertService service;
+    
+    @BeforeEach
+    void setUp() {
+        when(namedParameterJdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(String.class)))
+                .thenReturn(List.of("SKU-1"));
+        service = new ProductBulkUpsertService();
+        ReflectionTestUtils.setField(service, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(service, "namedParameterJdbcTemplate", namedParameterJdbcTemplate);
+        ReflectionTestUtils.setField(service, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "productService", mock(ProductService.class));
+        ReflectionTestUtils.setField(service, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "batchSize", 1);
+        service.init();
+    }
+    
+    @Test
+    void labelsRowsFromSkusReadInsideTheWriteTransaction() throws Exception {
+        BulkUpsertResult result = upsert("[" + product("SKU-1") + "," + product("sku-2") + "]");
+        
+        assertNull(result.feedError());
+        assertEquals(List.of(Outcome.UPDATED, Outcome.INSERTED), outcomes(result));
+        InOrder order = inOrder(transactionManager, namedParameterJdbcTemplate, jdbcTemplate);
+        for (int i = 0; i < 2; i++) {
+            order.verify(transactionManager).getTransaction(any());
+            order.verify(namedParameterJdbcTemplate).queryForList(anyString(), any(SqlParameterSource.class), eq(String.class));
+            order.verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+            order.verify(transactionManager).commit(any());
+        }
+    }
+    
+    @Test
+    void keepsTheRowsWrittenBeforeASyntaxError() throws Exception {
+        BulkUpsertResult result = upsert("[" + product("SKU-1") + "," + product("SKU-2") + ", {\"sku\": \"SKU-3\", ");
+        
+        assertNotNull(result.feedError());
+        assertTrue(result.feedError().startsWith("Feed unreadable after row 2"));
+        assertEquals(2L, result.rowsRead());
+        assertEquals(List.of(Outcome.UPDATED, Outcome.INSERTED), outcomes(result));
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+    
+    @Test
+    void writesThePendingBatchBeforeReportingTheError() throws Exception {
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+        
+        BulkUpsertResult result = upsert("[" + product("SKU-1") + ", oops");
+        
+        assertNotNull(result.feedError());
+        assertEquals(List.of(Outcome.UPDATED), outcomes(result));
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        verify(namedParameterJdbcTemplate).query(anyString(), any(SqlParameterSource.class), any(RowMapper.class));
+    }
+    
+    private BulkUpsertResult upsert(String feed) throws Exception {
+        return service.upsert(new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)),
+                ProductBulkUpsertService.Format.JSON);
+    }
+    
+    private static String product(String sku) {
+        return "{\"sku\":\"" + sku + "\",\"name\":\"Product " + sku + "\",\"price\":9.99,\"stockQuantity\":5}";
+    }
+    
+    private static List<Outcome> outcomes(BulkUpsertResult result) {
+        return result.rows().stream().map(BulkUpsertResult.RowResult::outcome).toList();
+    }
+}
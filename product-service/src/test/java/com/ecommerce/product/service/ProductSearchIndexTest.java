@@ -0,0 +1,103 @@
+package com.ecommerce.product.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.event.InProcessProductInvalidationBroadcast;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ProductSearchIndexTest {
+    
+    private ProductSearchIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        ReflectionTestUtils.setField(index, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(index, "broadcast", new InProcessProductInvalidationBroadcast());
+        index.init();
+    }
+    
+    @Test
+    void tokenizesLowercaseAlphanumericRuns() {
+        assertEquals(List.of("wireless", "mouse", "2", "0"), ProductSearchIndex.tokenize("Wireless-Mouse 2.0"));
+        assertEquals(List.of(), ProductSearchIndex.tokenize(null));
+    }
+    
+    @Test
+    void ranksNameHitsAboveCategoryAndDescriptionHits() {
+        index.update(product(1L, "USB hub", "Mouse accessories", "Four ports"));
+        index.update(product(2L, "Gaming mouse", "Peripherals", "Optical sensor"));
+        index.update(product(3L, "Desk mat", "Office", "Large enough for a mouse and keyboard"));
+        
+        assertEquals(List.of(2L, 1L, 3L), index.search("mouse", 0, 10).productIds());
+    }
+    
+    @Test
+    void requiresEveryTerm() {
+        index.update(product(1L, "Wireless mouse", "Peripherals", null));
+        index.update(product(2L, "Wired mouse", "Peripherals", null));
+        index.update(product(3L, "Wireless keyboard", "Peripherals", null));
+        
+        assertEquals(List.of(1L), index.search("wireless mouse", 0, 10).productIds());
+    }
+    
+    @Test
+    void matchesOnlyTheLastTermAsAPrefix() {
+        index.update(product(1L, "Wireless mouse", "Peripherals", null));
+        
+        assertEquals(List.of(1L), index.search("wireless mou", 0, 10).productIds());
+        assertEquals(List.of(), index.search("wire mouse", 0, 10).productIds());
+    }
+    
+    @Test
+    void ranksExactMatchesAbovePrefixMatches() {
+        index.update(product(1L, "Keyboard", "Peripherals", null));
+        index.update(product(2L, "Key", "Peripherals", null));
+        
+        assertEquals(List.of(2L, 1L), index.search("key", 0, 10).productIds());
+    }
+    
+    @Test
+    void reindexesUpdatedAndRemovedProducts() {
+        index.update(product(1L, "Wireless mouse", "Peripherals", null));
+        index.update(product(1L, "Wireless keyboard", "Peripherals", null));
+        
+        assertEquals(List.of(), index.search("mouse", 0, 10).productIds());
+        assertEquals(List.of(1L), index.search("keyboard", 0, 10).productIds());
+        
+        index.remove(1L);
+        assertEquals(List.of(), index.search("wireless", 0, 10).productIds());
+        assertEquals(0, index.size());
+    }
+    
+    @Test
+    void pagesThroughRankedHits() {
+        index.updateAll(List.of(
+                product(1L, "Cable one", null, null),
+                product(2L, "Cable two", null, null),
+                product(3L, "Cable three", null, null)));
+        
+        ProductSearchIndex.SearchHits page = index.search("cable", 1, 1);
+        assertEquals(List.of(2L), page.productIds());
+        assertEquals(3, page.total());
+        assertEquals(List.of(), index.search("cable", 3, 10).productIds());
+    }
+    
+    private static Product product(Long id, String name, String category, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setCategory(category);
+        product.setDescription(description);
+        return product;
+    }
+    
+}
@@ -0,0 +1,232 @@
+package com.ecommerce.product.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.ecommerce.product.dto.StockAdjustment;
+import com.ecommerce.product.exception.InsufficientStockException;
+
+//runs the reservation SQL against H2 in MySQL mode; every call commits on its own, as it does in production
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:stock;MODE=MySQL;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProductService.class)
+class ProductServiceStockTest {
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @MockBean
+    private ProductCache productCache;
+    
+    @MockBean
+    private ProductSearchIndex productSearchIndex;
+    
+    @MockBean
+    private CatalogFacetIndex catalogFacetIndex;
+    
+    @MockBean
+    private ProductVersions productVersions;
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM stock_reservations");
+        jdbcTemplate.update("DELETE FROM products");
+        product(1L, 5);
+        product(2L, 1);
+    }
+    
+    @Test
+    void reservesEveryLineInOneBatch() {
+        productService.reserveStock(List.of(
+                new StockAdjustment(1L, 2), new StockAdjustment(2L, 1), new StockAdjustment(1L, 1)));
+        
+        assertEquals(2, stock(1L));
+        assertEquals(0, stock(2L));
+    }
+    
+    @Test
+    void reservesNothingWhenAnyLineIsShort() {
+        assertThrows(InsufficientStockException.class, () -> productService.reserveStock(List.of(
+                new StockAdjustment(1L, 2), new StockAdjustment(2L, 3))));
+        
+        assertEquals(5, stock(1L));
+        assertEquals(1, stock(2L));
+    }
+    
+    @Test
+    void reservesNothingWhenAProductIsMissing() {
+        assertThrows(InsufficientStockException.class, () -> productService.reserveStock(List.of(
+                new StockAdjustment(1L, 1), new StockAdjustment(3L, 1))));
+        
+        assertEquals(5, stock(1L));
+    }
+    
+    @Test
+    void appliesARetriedReservationOnce() {
+        List<StockAdjustment> reservation = List.of(new StockAdjustment(1L, 2, "r-1"));
+        
+        productService.reserveStock(reservation);
+        productService.reserveStock(reservation);
+        
+        assertEquals(3, stock(1L));
+    }
+    
+    @Test
+    void retriesAReservationThatWasShort() {
+        List<StockAdjustment> reservation = List.of(new StockAdjustment(2L, 2, "r-1"));
+        
+        assertThrows(InsufficientStockException.class, () -> productService.reserveStock(reservation));
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 2 WHERE id = 2");
+        productService.reserveStock(reservation);
+        
+        assertEquals(0, stock(2L));
+    }
+    
+    @Test
+    void releasesAReservationOnce() {
+        List<StockAdjustment> reservation = List.of(new StockAdjustment(1L, 2, "r-1"));
+        productService.reserveStock(reservation);
+        
+        productService.releaseStock(reservation);
+        productService.releaseStock(reservation);
+        
+        assertEquals(5, stock(1L));
+    }
+    
+    @Test
+    void ignoresAReservationThatArrivesAfterItsRelease() {
+        List<StockAdjustment> reservation = List.of(new StockAdjustment(1L, 2, "r-1"));
+        
+        productService.releaseStock(reservation);
+        productService.reserveStock(reservation);
+        
+        assertEquals(5, stock(1L));
+    }
+    
+    @Test
+    void releasesOnlyTheReservationsStillHeld() {
+        productService.reserveStock(List.of(new StockAdjustment(1L, 1, "r-1")));
+        productService.reserveStock(List.of(new StockAdjustment(1L, 1, "r-2")));
+        productService.releaseStock(List.of(new StockAdjustment(1L, 1, "r-1")));
+        
+        productService.releaseStock(List.of(new StockAdjustment(1L, 1, "r-1"), new StockAdjustment(1L, 1, "r-2")));
+        
+        assertEquals(5, stock(1L));
+    }
+    
+    @Test
+    void rejectsAReservationUnderSeveralIds() {
+        assertThrows(IllegalArgumentException.class, () -> productService.reserveStock(List.of(
+                new StockAdjustment(1L, 1, "r-1"), new StockAdjustment(2L, 1, "r-2"))));
+    }
+    
+    @Test
+    void neverOversellsASkuUnderConcurrentReservations() throws Exception {
+        product(3L, 100);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        
+        hammer(16, 25, (thread, i) -> {
+            try {
+                productService.reserveStock(List.of(new StockAdjustment(3L, 1, "t" + thread + "-" + i)));
+                reserved.incrementAndGet();
+            } catch (InsufficientStockException e) {
+                rejected.incrementAndGet();
+            }
+        });
+        
+        assertEquals(100, reserved.get());
+        assertEquals(300, rejected.get());
+        assertEquals(0, stock(3L));
+    }
+    
+    @Test
+    void appliesConcurrentRetriesOfOneReservationOnce() throws Exception {
+        product(3L, 100);
+        
+        hammer(16, 10, (thread, i) -> productService.reserveStock(List.of(new StockAdjustment(3L, 1, "r-" + i))));
+        
+        assertEquals(90, stock(3L));
+    }
+    
+    @Test
+    void releasesConcurrentlyReleasedReservationsOnce() throws Exception {
+        product(3L, 100);
+        for (int i = 0; i < 10; i++) {
+            productService.reserveStock(List.of(new StockAdjustment(3L, 5, "r-" + i)));
+        }
+        
+        hammer(16, 10, (thread, i) -> productService.releaseStock(List.of(new StockAdjustment(3L, 5, "r-" + i))));
+        
+        assertEquals(100, stock(3L));
+    }
+    
+    //runs calls(thread, i) for i in [0, callsPerThread) on every thread at once and fails on any unexpected error
+    private void hammer(int threads, int callsPerThread, Call call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < callsPerThread; i++) {
+                    call.run(thread, i);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } catch (ExecutionException e) {
+            throw new AssertionError("Concurrent call failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private void product(Long id, int stock) {
+        jdbcTemplate.update("INSERT INTO products (id, sku, name, price, stock_quantity) VALUES (?, ?, ?, 9.99, ?)",
+                id, "SKU-" + id, "Product " + id, stock);
+    }
+    
+    private int stock(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+    
+    private interface Call {
+        void run(int thread, int i);
+    }
+}